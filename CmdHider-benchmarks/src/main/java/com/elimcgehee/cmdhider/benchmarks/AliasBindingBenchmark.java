@@ -0,0 +1,72 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.AliasGraph;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Alias classes: bind is the per-command-map cost of RuleSet#withAliases, lookups the per-send cost of labels
+// that only have a decision through an alias (one extra table probe) next to the unbound rules.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AliasBindingBenchmark {
+
+    @Param({"1000", "10000"})
+    public int commandCount;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    private RuleSet rules;
+    private AliasGraph aliases;
+    private RuleSet bound;
+    private List<String> labels;
+
+    @Setup
+    public void setup() {
+        List<String> base = SyntheticCommands.labels(commandCount);
+        rules = SyntheticCommands.rules(base, ruleCount, 1);
+        Map<String, Object> owners = SyntheticCommands.aliasOwners(base);
+        aliases = AliasGraph.of(owners);
+        bound = rules.withAliases(aliases);
+        labels = new ArrayList<>(owners.keySet());
+    }
+
+    @Benchmark
+    public RuleSet bind() {
+        return rules.withAliases(aliases);
+    }
+
+    @Benchmark
+    public void lookupUnbound(Blackhole blackhole) {
+        for (String label : labels) {
+            blackhole.consume(rules.decision(label, "default"));
+        }
+    }
+
+    @Benchmark
+    public void lookupBound(Blackhole blackhole) {
+        for (String label : labels) {
+            blackhole.consume(bound.decision(label, "default"));
+        }
+    }
+}
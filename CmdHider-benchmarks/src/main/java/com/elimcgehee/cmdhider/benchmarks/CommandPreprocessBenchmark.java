@@ -0,0 +1,75 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.ExecutionVerdict;
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Mirrors onCommandPreprocess (and the proxy's onCommandExecute): label extraction followed by the execution check.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandPreprocessBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int commandCount;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    @Param({"1", "8"})
+    public int groupCount;
+
+    private final Object player = new Object();
+    private List<String> messages;
+    private List<String> groups;
+    private RuleSet rules;
+    private RuleEngine<Object> engine;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<String> labels = SyntheticCommands.labels(commandCount);
+        messages = new ArrayList<>(labels.size() + labels.size() / 4);
+        for (int i = 0; i < labels.size(); i++) {
+            messages.add("/" + labels.get(i) + " arg1 arg2");
+            // Mix in unknown labels the way typos and probing clients do.
+            if (i % 4 == 0) {
+                messages.add("/unknown" + i + " arg");
+            }
+        }
+        groups = SyntheticCommands.groups(groupCount);
+        rules = SyntheticCommands.rules(labels, ruleCount, groupCount);
+        Set<String> known = SyntheticCommands.knownLabels(labels);
+        engine = new RuleEngine<>(known::contains, SyntheticCommands.permissions(labels));
+    }
+
+    @Benchmark
+    public ExecutionVerdict commandPreprocess() {
+        int index = next++;
+        String message = messages.get(index % messages.size());
+        String group = groups.get(index % groups.size());
+        String[] args = message.substring(1).split(" ");
+        String label = args[0].toLowerCase(Locale.ROOT);
+        return engine.checkExecution(player, label, group, rules, true);
+    }
+}
@@ -0,0 +1,123 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.Bitsets;
+import com.elimcgehee.cmdhider.core.PermissionLookup;
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.RuleMasks;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Mirrors onCommandSend: every label of the player's command list is evaluated and hidden ones removed.
+// commandSend is the per-label path; the masks variants are the bitset path over the snapshot's label IDs,
+// without and with a cached visibility entry.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandSendBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int commandCount;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    @Param({"1", "8"})
+    public int groupCount;
+
+    private final Object player = new Object();
+    private List<String> labels;
+    private List<String> groups;
+    private RuleSet rules;
+    private RuleEngine<Object> engine;
+    private PermissionLookup<Object> permissions;
+    private Map<String, Integer> labelIds;
+    private Map<String, RuleMasks> masks;
+    private Map<String, long[]> visible;
+    private int nextGroup;
+
+    @Setup
+    public void setup() {
+        labels = SyntheticCommands.labels(commandCount);
+        groups = SyntheticCommands.groups(groupCount);
+        rules = SyntheticCommands.rules(labels, ruleCount, groupCount);
+        Set<String> known = SyntheticCommands.knownLabels(labels);
+        permissions = SyntheticCommands.permissions(labels);
+        engine = new RuleEngine<>(known::contains, permissions);
+        labelIds = new HashMap<>();
+        for (int id = 0; id < labels.size(); id++) {
+            labelIds.put(labels.get(id), id);
+        }
+        // RuleMaskIndex keeps one per group until the rules or the command map change.
+        masks = new HashMap<>();
+        visible = new HashMap<>();
+        for (String group : groups) {
+            RuleMasks groupMasks = RuleMasks.compute(labels, group, rules);
+            masks.put(group, groupMasks);
+            visible.put(group, groupMasks.visible(permitted(groupMasks.pending())));
+        }
+    }
+
+    private long[] permitted(long[] pending) {
+        long[] permitted = Bitsets.allocate(labels.size());
+        for (int id = Bitsets.nextSetBit(pending, 0); id >= 0; id = Bitsets.nextSetBit(pending, id + 1)) {
+            if (permissions.canUse(player, labels.get(id))) {
+                Bitsets.set(permitted, id);
+            }
+        }
+        return permitted;
+    }
+
+    @Benchmark
+    public Collection<String> commandSend() {
+        String group = groups.get(nextGroup++ % groups.size());
+        // The event hands us a fresh mutable collection per send.
+        Collection<String> commands = new ArrayList<>(labels);
+        commands.removeIf(label -> engine.evaluate(player, label, group, rules).hidden());
+        return commands;
+    }
+
+    // Visibility cache miss: permission checks for the pending labels only, then one OR per word.
+    @Benchmark
+    public Collection<String> commandSendMasks() {
+        String group = groups.get(nextGroup++ % groups.size());
+        RuleMasks groupMasks = masks.get(group);
+        groupMasks.credit();
+        long[] bits = groupMasks.visible(permitted(groupMasks.pending()));
+        return retain(bits);
+    }
+
+    // Visibility cache hit: only the bit tests and the rule credit remain.
+    @Benchmark
+    public Collection<String> commandSendCached() {
+        String group = groups.get(nextGroup++ % groups.size());
+        masks.get(group).credit();
+        return retain(visible.get(group));
+    }
+
+    private Collection<String> retain(long[] bits) {
+        Collection<String> commands = new ArrayList<>(labels);
+        commands.removeIf(label -> !Bitsets.get(bits, labelIds.get(label)));
+        return commands;
+    }
+}
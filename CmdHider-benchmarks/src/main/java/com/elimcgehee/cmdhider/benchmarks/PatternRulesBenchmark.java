@@ -0,0 +1,66 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.Decision;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Rule lookups over a command map when the rules are globs and regexes: the glob DFA costs one step per
+// character whatever the pattern count, while regexes share one alternation per list.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatternRulesBenchmark {
+
+    @Param({"1000"})
+    public int commandCount;
+
+    @Param({"10", "100", "1000"})
+    public int patternCount;
+
+    @Param({"glob", "regex", "mixed"})
+    public String kind;
+
+    private List<String> labels;
+    private RuleSet rules;
+    private RuleSet uncounted;
+
+    @Setup
+    public void setup() {
+        labels = SyntheticCommands.labels(commandCount);
+        rules = SyntheticCommands.patternRules(patternCount, kind);
+        uncounted = rules.uncounted();
+    }
+
+    @Benchmark
+    public void decide(Blackhole blackhole) {
+        for (String label : labels) {
+            blackhole.consume(rules.decision(label, null));
+        }
+    }
+
+    // Same lookups without hit attribution, as cache builds run them.
+    @Benchmark
+    public void decideUncounted(Blackhole blackhole) {
+        for (String label : labels) {
+            Decision decision = uncounted.decision(label, null);
+            blackhole.consume(decision);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// Mirrors the proxy's onAvailableCommands: root children are pruned by rules and each node's requirement predicate.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyAvailableCommandsBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int commandCount;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    @Param({"1", "8"})
+    public int groupCount;
+
+    private final Object player = new Object();
+    private Map<String, Predicate<Object>> nodes;
+    private List<String> groups;
+    private RuleSet rules;
+    private RuleEngine<Object> engine;
+    private int nextGroup;
+
+    @Setup
+    public void setup() {
+        List<String> labels = SyntheticCommands.labels(commandCount);
+        nodes = new LinkedHashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            // Backend nodes carry no requirement; proxy-registered ones (every tenth) do.
+            boolean allowed = i % 20 != 0;
+            nodes.put(labels.get(i), i % 10 == 0 ? source -> allowed : null);
+        }
+        groups = SyntheticCommands.groups(groupCount);
+        rules = SyntheticCommands.rules(labels, ruleCount, groupCount);
+        engine = new RuleEngine<>(label -> false, (subject, label) -> true);
+    }
+
+    @Benchmark
+    public Map<String, Predicate<Object>> availableCommands() {
+        String group = groups.get(nextGroup++ % groups.size());
+        // Velocity builds a fresh root node per event.
+        Map<String, Predicate<Object>> children = new LinkedHashMap<>(nodes);
+        children.entrySet().removeIf(node -> {
+            String name = node.getKey().toLowerCase(Locale.ROOT);
+            Predicate<Object> requirement = node.getValue();
+            return engine.evaluate(player, name, group, rules,
+                    (source, label) -> requirement == null || requirement.test(source)).hidden();
+        });
+        return children;
+    }
+}
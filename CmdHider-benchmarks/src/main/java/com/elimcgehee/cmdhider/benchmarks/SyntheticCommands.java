@@ -0,0 +1,108 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.PermissionLookup;
+import com.elimcgehee.cmdhider.core.RuleSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Deterministic command maps, rule sets and permission stubs shared by the benchmarks.
+final class SyntheticCommands {
+
+    private static final int PLUGIN_COUNT = 40;
+
+    private SyntheticCommands() {
+    }
+
+    static List<String> labels(int commandCount) {
+        List<String> labels = new ArrayList<>(commandCount);
+        for (int i = 0; labels.size() < commandCount; i++) {
+            String base = "cmd" + i;
+            labels.add(base);
+            // Roughly a quarter of a real command map is plugin:label registrations.
+            if (labels.size() < commandCount && i % 3 == 0) {
+                labels.add("plugin" + (i % PLUGIN_COUNT) + ":" + base);
+            }
+        }
+        return Collections.unmodifiableList(labels);
+    }
+
+    static List<String> groups(int groupCount) {
+        List<String> groups = new ArrayList<>(groupCount);
+        groups.add("default");
+        for (int i = 1; i < groupCount; i++) {
+            groups.add("group" + i);
+        }
+        return groups;
+    }
+
+    static RuleSet rules(List<String> labels, int ruleCount, int groupCount) {
+        Random random = new Random(42L);
+        Set<String> alwaysShow = new HashSet<>();
+        Set<String> alwaysHide = new HashSet<>();
+        Map<String, Set<String>> groupAlwaysShow = new HashMap<>();
+        Map<String, Set<String>> groupAlwaysHide = new HashMap<>();
+        List<String> groups = groups(groupCount);
+        for (int i = 0; i < ruleCount; i++) {
+            String label = labels.get(random.nextInt(labels.size()));
+            // Every fourth rule is global, the rest are spread across groups; hide rules outnumber show rules 3:1.
+            boolean show = random.nextInt(4) == 0;
+            if (i % 4 == 0) {
+                (show ? alwaysShow : alwaysHide).add(label);
+            } else {
+                String group = groups.get(random.nextInt(groups.size()));
+                (show ? groupAlwaysShow : groupAlwaysHide).computeIfAbsent(group, key -> new HashSet<>()).add(label);
+            }
+        }
+        return new RuleSet(true, true, alwaysShow, alwaysHide, groupAlwaysShow, groupAlwaysHide);
+    }
+
+    // Globs and regexes in the shapes configs use: plugin namespaces, substrings and numbered families.
+    static RuleSet patternRules(int patternCount, String kind) {
+        Set<String> alwaysShow = new HashSet<>();
+        Set<String> alwaysHide = new HashSet<>();
+        for (int i = 0; i < patternCount; i++) {
+            boolean regex = kind.equals("regex") || kind.equals("mixed") && i % 2 == 1;
+            String pattern = switch (i % 3) {
+                case 0 -> regex ? "regex:^plugin" + (i % PLUGIN_COUNT) + ":.*$" : "plugin" + (i % PLUGIN_COUNT) + ":*";
+                case 1 -> regex ? "regex:^.*md" + i + ".*$" : "*md" + i + "*";
+                default -> regex ? "regex:^cmd" + i + "\\d$" : "cmd" + i + "?";
+            };
+            (i % 4 == 0 ? alwaysShow : alwaysHide).add(pattern);
+        }
+        return new RuleSet(true, true, alwaysShow, alwaysHide, Map.of(), Map.of());
+    }
+
+    // Each base command owns its namespaced form and two aliases, the way most plugins register them.
+    static Map<String, Object> aliasOwners(List<String> labels) {
+        Map<String, Object> owners = new HashMap<>();
+        Map<String, Object> byBase = new HashMap<>();
+        for (String label : labels) {
+            String base = label.substring(label.indexOf(':') + 1);
+            Object command = byBase.computeIfAbsent(base, key -> new Object());
+            owners.put(label, command);
+            owners.put("e" + base, command);
+            owners.put("x" + base, command);
+        }
+        return owners;
+    }
+
+    static Set<String> knownLabels(List<String> labels) {
+        return Set.copyOf(labels);
+    }
+
+    // Denies every seventh command, approximating a LuckPerms lookup with a cached permission map.
+    static PermissionLookup<Object> permissions(List<String> labels) {
+        Map<String, Boolean> granted = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++) {
+            granted.put(labels.get(i), i % 7 != 0);
+        }
+        return (subject, label) -> granted.getOrDefault(label, Boolean.TRUE);
+    }
+}
@@ -0,0 +1,103 @@
+package com.elimcgehee.cmdhider.benchmarks;
+
+import com.elimcgehee.cmdhider.core.LabelTrie;
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Mirrors onTabComplete for root completions: the server offers every label matching the typed prefix.
+// tabCompleteTrie checks each offered completion against the per-group LabelTrie that CompletionIndex keeps;
+// tabCompleteTriePrefix reads the answer off the trie by prefix, as players with current visibility bits get.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TabCompleteBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int commandCount;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    @Param({"1", "8"})
+    public int groupCount;
+
+    @Param({"", "cmd", "cmd1"})
+    public String prefix;
+
+    private List<String> completions;
+    private List<String> groups;
+    private RuleSet rules;
+    private RuleEngine<Object> engine;
+    private Map<String, LabelTrie> tries;
+    private int nextGroup;
+
+    @Setup
+    public void setup() {
+        List<String> labels = SyntheticCommands.labels(commandCount);
+        completions = new ArrayList<>();
+        for (String label : labels) {
+            if (label.startsWith(prefix)) {
+                completions.add(label);
+            }
+        }
+        groups = SyntheticCommands.groups(groupCount);
+        rules = SyntheticCommands.rules(labels, ruleCount, groupCount);
+        engine = new RuleEngine<>(label -> true, (subject, label) -> true);
+        tries = new HashMap<>();
+        for (String group : groups) {
+            tries.put(group, LabelTrie.build(labels, group, rules));
+        }
+    }
+
+    @Benchmark
+    public List<String> tabComplete() {
+        String group = groups.get(nextGroup++ % groups.size());
+        List<String> filtered = new ArrayList<>(completions.size());
+        for (String completion : completions) {
+            if (engine.keepCompletion(completion, group, rules)) {
+                filtered.add(completion);
+            }
+        }
+        return filtered;
+    }
+
+    @Benchmark
+    public List<String> tabCompleteTrie() {
+        LabelTrie trie = tries.get(groups.get(nextGroup++ % groups.size()));
+        List<String> filtered = new ArrayList<>(completions.size());
+        for (String completion : completions) {
+            if (trie.status(completion) == LabelTrie.Status.ALLOWED) {
+                filtered.add(completion);
+            }
+        }
+        return filtered;
+    }
+
+    @Benchmark
+    public List<String> tabCompleteTriePrefix() {
+        LabelTrie trie = tries.get(groups.get(nextGroup++ % groups.size()));
+        List<String> answered = new ArrayList<>();
+        trie.completions(prefix, (label, id) -> answered.add(label));
+        return answered;
+    }
+}
@@ -0,0 +1,40 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Equivalence classes of labels that reach the same command: its name, its aliases and every namespaced form.
+// Built from a label -> command map by identity, since a command map registers one object under all of them.
+public final class AliasGraph {
+
+    public static final AliasGraph EMPTY = new AliasGraph(List.of());
+
+    private final List<List<String>> classes;
+
+    private AliasGraph(List<List<String>> classes) {
+        this.classes = classes;
+    }
+
+    public static AliasGraph of(Map<String, ?> owners) {
+        Map<Object, List<String>> byOwner = new IdentityHashMap<>();
+        owners.forEach((label, owner) -> {
+            if (owner != null) {
+                byOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(label);
+            }
+        });
+        List<List<String>> classes = new ArrayList<>();
+        for (List<String> labels : byOwner.values()) {
+            // A command known under a single label has nothing to share.
+            if (labels.size() > 1) {
+                classes.add(List.copyOf(labels));
+            }
+        }
+        return classes.isEmpty() ? EMPTY : new AliasGraph(List.copyOf(classes));
+    }
+
+    public List<List<String>> classes() {
+        return classes;
+    }
+}
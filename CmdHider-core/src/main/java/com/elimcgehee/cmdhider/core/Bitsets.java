@@ -0,0 +1,67 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+// Fixed-size bitsets over dense IDs, stored as plain long[] words.
+public final class Bitsets {
+
+    private Bitsets() {
+    }
+
+    public static long[] allocate(int bits) {
+        return new long[(bits + 63) >>> 6];
+    }
+
+    public static void set(long[] words, int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public static void clear(long[] words, int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    // Bits past the end of the array read as clear, so sets built over a shorter ID range stay usable.
+    public static boolean get(long[] words, int index) {
+        int word = index >>> 6;
+        return word < words.length && (words[word] & (1L << index)) != 0;
+    }
+
+    // Index of the next set bit at or after from, or -1.
+    public static int nextSetBit(long[] words, int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    public static boolean any(long[] words, int[] indexes) {
+        for (int index : indexes) {
+            if (get(words, index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // One pass over a list of permission nodes; bit i is set when nodes.get(i) is granted.
+    public static long[] evaluate(List<String> nodes, Predicate<String> granted) {
+        long[] words = allocate(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            if (granted.test(nodes.get(i))) {
+                set(words, i);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,111 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Burkhard-Keller tree over lowercase labels with Levenshtein distance, for "did you mean" lookups. A query
+// only visits children whose edge distance lies within maxDistance of the current node's, so a few thousand
+// labels cost a few dozen distance computations. Grows by insertion; not thread-safe.
+public final class BkTree {
+
+    private Node root;
+    private final Set<String> words = new HashSet<>();
+
+    // Returns false if the word was already present.
+    public boolean add(String word) {
+        if (!words.add(word)) {
+            return false;
+        }
+        if (root == null) {
+            root = new Node(word);
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word, Integer.MAX_VALUE);
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                node.maxEdge = Math.max(node.maxEdge, distance);
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    // Words within maxDistance of the query, nearest first, then closest in length, then alphabetically.
+    public List<Match> within(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null || maxDistance < 0) {
+            return matches;
+        }
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            // No child edge is longer than maxEdge, so past maxEdge + maxDistance the exact value no longer matters.
+            int distance = distance(query, node.word, node.maxEdge + maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.word, distance));
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.add(child.getValue());
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance)
+                .thenComparingInt(match -> Math.abs(match.word().length() - query.length()))
+                .thenComparing(Match::word));
+        return matches;
+    }
+
+    // Two-row Levenshtein; stops early once every cell in a row exceeds the limit.
+    static int distance(CharSequence a, CharSequence b, int limit) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return rowMin;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    public record Match(String word, int distance) {
+    }
+
+    private static final class Node {
+
+        private final String word;
+        private final Map<Integer, Node> children = new HashMap<>(4);
+        private int maxEdge;
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.elimcgehee.cmdhider.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+// Base for CmdHider's Java Flight Recorder events. Callers begin() before the work and check shouldCommit()
+// before filling fields, so with recording off an event costs an allocation the JIT usually removes.
+@Category("CmdHider")
+@StackTrace(false)
+public abstract class CmdHiderFlightEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Player")
+    String player;
+
+    @Label("Group")
+    String group;
+}
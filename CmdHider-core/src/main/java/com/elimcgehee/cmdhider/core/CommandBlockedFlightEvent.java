@@ -0,0 +1,31 @@
+package com.elimcgehee.cmdhider.core;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cmdhider.CommandBlocked")
+@Label("Command Blocked")
+@Description("A command execution cancelled by CmdHider")
+public class CommandBlockedFlightEvent extends CmdHiderFlightEvent {
+
+    @Label("Label")
+    String label;
+
+    @Label("Rule")
+    @Description("Patterns of the config entries that decided the label, if any")
+    String rule;
+
+    @Label("Verdict")
+    String verdict;
+
+    public void emit(String source, String player, String group, String label, String rule, String verdict) {
+        this.source = source;
+        this.player = player;
+        this.group = group;
+        this.label = label;
+        this.rule = rule;
+        this.verdict = verdict;
+        commit();
+    }
+}
@@ -0,0 +1,8 @@
+package com.elimcgehee.cmdhider.core;
+
+// Platform hook: whether a label belongs to a command this platform handles itself.
+@FunctionalInterface
+public interface CommandLookup {
+
+    boolean isKnown(String label);
+}
@@ -0,0 +1,50 @@
+package com.elimcgehee.cmdhider.core;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Name("cmdhider.CommandSend")
+@Label("Command List Filtered")
+@Description("One evaluation of the command list sent to a player")
+public class CommandSendFlightEvent extends CmdHiderFlightEvent {
+
+    @Label("Commands")
+    int commandCount;
+
+    @Label("Hidden")
+    int hiddenCount;
+
+    @Label("Hidden Labels")
+    String labels;
+
+    @Label("Rules")
+    @Description("Patterns of the config entries that decided the hidden labels, if any")
+    String rule;
+
+    // sent is the list as it arrived and kept what is left of it; rules are only consulted for the hidden labels.
+    public void emit(String source, String player, String group, Collection<String> sent, Collection<String> kept,
+                     RuleSet rules) {
+        Set<String> remaining = new HashSet<>(kept);
+        List<String> hidden = new ArrayList<>();
+        for (String label : sent) {
+            if (!remaining.contains(label)) {
+                hidden.add(label);
+            }
+        }
+        this.source = source;
+        this.player = player;
+        this.group = group;
+        this.commandCount = sent.size();
+        this.hiddenCount = hidden.size();
+        this.labels = String.join(", ", hidden);
+        this.rule = rules.decidingRules(hidden, group);
+        commit();
+    }
+}
@@ -0,0 +1,65 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// One config entry as compiled into a RuleSet. Every lookup it decides bumps a striped counter, so hot paths
+// on many threads never contend; the counters live as long as the RuleSet, i.e. until the next reload.
+public final class CompiledRule {
+
+    private final String group;
+    private final boolean hide;
+    private final String pattern;
+    private final LongAdder hits = new LongAdder();
+
+    CompiledRule(String group, boolean hide, String pattern) {
+        this.group = group;
+        this.hide = hide;
+        this.pattern = pattern;
+    }
+
+    // Null for the global lists.
+    public String group() {
+        return group;
+    }
+
+    public boolean hide() {
+        return hide;
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public boolean isPattern() {
+        return PatternRules.isPattern(pattern);
+    }
+
+    // For exact rules, the label itself once escapes are removed.
+    String label() {
+        return GlobAutomaton.literal(pattern);
+    }
+
+    public void hit() {
+        hits.increment();
+    }
+
+    // For cached results: one call per reuse, n = how many of the cached decisions this entry made.
+    public void hit(long n) {
+        hits.add(n);
+    }
+
+    // Same text for the same config entry across RuleSets, so per-server copies can be summed.
+    public String describe() {
+        String list = hide ? "always-hide" : "always-show";
+        return (group == null ? list : "per-group." + group + "." + list) + " '" + pattern + "'";
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+}
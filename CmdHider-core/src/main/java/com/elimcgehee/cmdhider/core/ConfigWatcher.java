@@ -0,0 +1,93 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Watches a single config file and calls back once writes to it have been quiet for the debounce window,
+// so editors that save in several steps trigger one reload. The callback runs on the watcher thread.
+public final class ConfigWatcher implements AutoCloseable {
+
+    private final Path file;
+    private final long debounceMillis;
+    private final Runnable onChange;
+    private final Logger logger;
+    private WatchService watchService;
+    private Thread thread;
+
+    public ConfigWatcher(Path file, long debounceMillis, Runnable onChange, Logger logger) {
+        this.file = file.toAbsolutePath();
+        this.debounceMillis = Math.max(0L, debounceMillis);
+        this.onChange = onChange;
+        this.logger = logger;
+    }
+
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::run, "CmdHider-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (thread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Failed to close config watcher", ex);
+        }
+        thread.interrupt();
+        thread = null;
+    }
+
+    private void run() {
+        Path name = file.getFileName();
+        long deadline = 0L;
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = deadline == 0L
+                        ? watchService.take()
+                        : watchService.poll(Math.max(1L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            if (key != null) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) {
+                        deadline = System.currentTimeMillis() + debounceMillis;
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warning("Config directory is no longer accessible; stopped watching " + file);
+                    return;
+                }
+            }
+            if (deadline != 0L && System.currentTimeMillis() >= deadline) {
+                deadline = 0L;
+                try {
+                    onChange.run();
+                } catch (RuntimeException ex) {
+                    logger.log(Level.SEVERE, "Config reload triggered by file change failed", ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.elimcgehee.cmdhider.core;
+
+public enum Decision {
+    DEFER(false, false),
+    SHOW(true, false),
+    HIDE(false, true),
+    // Listed in both an always-show and an always-hide list: filtering keeps it, execution still blocks it.
+    SHOW_AND_HIDE(true, true);
+
+    private final boolean alwaysShow;
+    private final boolean alwaysHide;
+
+    Decision(boolean alwaysShow, boolean alwaysHide) {
+        this.alwaysShow = alwaysShow;
+        this.alwaysHide = alwaysHide;
+    }
+
+    public boolean alwaysShow() {
+        return alwaysShow;
+    }
+
+    public boolean alwaysHide() {
+        return alwaysHide;
+    }
+
+    public Decision merge(Decision other) {
+        return of(alwaysShow || other.alwaysShow, alwaysHide || other.alwaysHide);
+    }
+
+    public static Decision of(boolean alwaysShow, boolean alwaysHide) {
+        if (alwaysShow) {
+            return alwaysHide ? SHOW_AND_HIDE : SHOW;
+        }
+        return alwaysHide ? HIDE : DEFER;
+    }
+}
@@ -0,0 +1,147 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Open-addressed label table probed over a char range, so lookups never lowercase or substring the label.
+// Glob and regex rules are kept out of the table and matched by the group's PatternRules instead.
+// Each slot also remembers the config entries behind it, so a decided lookup can report them to the caller's sink.
+final class DecisionIndex {
+
+    private static final DecisionIndex EMPTY = new DecisionIndex(Map.of(), Map.of(), null, true);
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    private final String[] keys;
+    private final Decision[] values;
+    private final CompiledRule[][] owners;
+    private final int mask;
+    private final PatternRules patterns;
+    // Whether "plugin:label" falls back to the entry for "label".
+    private final boolean namespaceFallback;
+
+    private DecisionIndex(Map<String, Decision> entries, Map<String, List<CompiledRule>> owners, PatternRules patterns,
+                          boolean namespaceFallback) {
+        int capacity = Integer.highestOneBit(Math.max(4, entries.size() * 2 - 1)) << 1;
+        this.keys = new String[capacity];
+        this.values = new Decision[capacity];
+        this.owners = new CompiledRule[capacity][];
+        this.mask = capacity - 1;
+        this.patterns = patterns;
+        this.namespaceFallback = namespaceFallback;
+        for (Map.Entry<String, Decision> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            int slot = Labels.hash(key, 0, key.length()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = entry.getValue();
+            this.owners[slot] = owners.getOrDefault(key, List.of()).toArray(NO_RULES);
+        }
+    }
+
+    static DecisionIndex compile(Collection<CompiledRule> rules) {
+        if (rules.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Decision> entries = new HashMap<>();
+        Map<String, List<CompiledRule>> owners = new HashMap<>();
+        for (CompiledRule rule : rules) {
+            if (!rule.isPattern()) {
+                entries.merge(rule.label(), rule.hide() ? Decision.HIDE : Decision.SHOW, Decision::merge);
+                owners.computeIfAbsent(rule.label(), key -> new ArrayList<>()).add(rule);
+            }
+        }
+        // A rule for "label" also covers "plugin:label", so fold the base decision into namespaced keys up front.
+        Map<String, Decision> expanded = new HashMap<>(entries);
+        Map<String, List<CompiledRule>> expandedOwners = new HashMap<>(owners);
+        for (Map.Entry<String, Decision> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            int colonIndex = key.indexOf(':');
+            if (colonIndex >= 0) {
+                String baseKey = key.substring(colonIndex + 1);
+                Decision base = entries.get(baseKey);
+                if (base != null) {
+                    expanded.put(key, entry.getValue().merge(base));
+                    List<CompiledRule> merged = new ArrayList<>(owners.get(key));
+                    merged.addAll(owners.get(baseKey));
+                    expandedOwners.put(key, merged);
+                }
+            }
+        }
+        return new DecisionIndex(expanded, expandedOwners, PatternRules.compile(rules), true);
+    }
+
+    Decision lookup(String label, Consumer<CompiledRule> sink) {
+        if (label == null) {
+            return lookup("", 0, 0, sink);
+        }
+        int start = label.startsWith("/") ? 1 : 0;
+        return lookup(label, start, label.length(), sink);
+    }
+
+    // Table of exact labels only: no patterns and no "plugin:label" fallback, e.g. for decisions inherited
+    // through aliases, where each namespaced label has its own entry or none.
+    static DecisionIndex exact(Map<String, Decision> entries, Map<String, List<CompiledRule>> owners) {
+        return entries.isEmpty() ? EMPTY : new DecisionIndex(entries, owners, null, false);
+    }
+
+    // sink is given every entry behind the decision; null for lookups that must not show up as rule traffic.
+    Decision lookup(CharSequence label, int from, int to, Consumer<CompiledRule> sink) {
+        Decision exact = lookupExact(label, from, to, sink);
+        if (patterns == null) {
+            return exact;
+        }
+        Decision matched = exact.merge(patterns.match(label, from, to, sink));
+        int colonIndex = indexOf(label, ':', from, to);
+        if (colonIndex >= 0) {
+            matched = matched.merge(patterns.match(label, colonIndex + 1, to, sink));
+        }
+        return matched;
+    }
+
+    private Decision lookupExact(CharSequence label, int from, int to, Consumer<CompiledRule> sink) {
+        int slot = probe(label, from, to);
+        if (slot < 0 && namespaceFallback) {
+            int colonIndex = indexOf(label, ':', from, to);
+            slot = colonIndex < 0 ? -1 : probe(label, colonIndex + 1, to);
+        }
+        if (slot < 0) {
+            return Decision.DEFER;
+        }
+        if (sink != null) {
+            for (CompiledRule rule : owners[slot]) {
+                sink.accept(rule);
+            }
+        }
+        return values[slot];
+    }
+
+    private static int indexOf(CharSequence label, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (label.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the slot holding the label, or -1.
+    private int probe(CharSequence label, int from, int to) {
+        int slot = Labels.hash(label, from, to) & mask;
+        while (true) {
+            String key = keys[slot];
+            if (key == null) {
+                return -1;
+            }
+            if (Labels.regionMatches(key, label, from, to)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Debug trace of hide/block decisions. Producers copy references into a preallocated ring and never build strings;
+// a single drainer formats and logs the events later, off the hot path.
+public final class DecisionTrace {
+
+    private static final int CAPACITY = 4096;
+    private static final long WRITING = -1L;
+
+    private final Slot[] slots = new Slot[CAPACITY];
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder overwritten = new LongAdder();
+    private volatile TraceOptions options = TraceOptions.DISABLED;
+    private long tail;
+
+    public DecisionTrace() {
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public void configure(TraceOptions options) {
+        this.options = options;
+    }
+
+    public boolean enabled() {
+        return options.enabled();
+    }
+
+    public void record(String source, String player, String label, Enum<?> outcome) {
+        TraceOptions current = options;
+        if (!current.enabled()) {
+            return;
+        }
+        if (!current.players().isEmpty() && (player == null || !current.players().contains(player))) {
+            return;
+        }
+        if (!current.labels().isEmpty() && (label == null || !current.labels().contains(label))) {
+            return;
+        }
+        if (current.sampleEvery() > 1 && sampled.getAndIncrement() % current.sampleEvery() != 0) {
+            return;
+        }
+        if (current.maxPerSecond() > 0 && !acquire(current.maxPerSecond())) {
+            suppressed.increment();
+            return;
+        }
+        long sequence = head.getAndIncrement();
+        Slot slot = slots[(int) (sequence & (CAPACITY - 1))];
+        slot.sequence = WRITING;
+        slot.timeMillis = System.currentTimeMillis();
+        slot.source = source;
+        slot.player = player;
+        slot.label = label;
+        slot.outcome = outcome;
+        slot.sequence = sequence;
+    }
+
+    // Single consumer. Returns the number of events emitted.
+    public synchronized int drain(Consumer<String> sink) {
+        long published = head.get();
+        if (published - tail > CAPACITY) {
+            overwritten.add(published - tail - CAPACITY);
+            tail = published - CAPACITY;
+        }
+        int emitted = 0;
+        while (tail < published) {
+            Slot slot = slots[(int) (tail & (CAPACITY - 1))];
+            long before = slot.sequence;
+            if (before == WRITING || before < tail) {
+                // Claimed but not yet published; pick it up on the next drain.
+                break;
+            }
+            long timeMillis = slot.timeMillis;
+            String source = slot.source;
+            String player = slot.player;
+            String label = slot.label;
+            Enum<?> outcome = slot.outcome;
+            if (slot.sequence != before || before != tail) {
+                overwritten.increment();
+            } else {
+                sink.accept(format(timeMillis, source, player, label, outcome));
+                emitted++;
+            }
+            tail++;
+        }
+        long dropped = suppressed.sumThenReset();
+        long lapped = overwritten.sumThenReset();
+        if (dropped > 0 || lapped > 0) {
+            sink.accept("Trace: " + dropped + " events suppressed by rate limit, " + lapped + " overwritten before drain.");
+        }
+        return emitted;
+    }
+
+    private boolean acquire(int maxPerSecond) {
+        long second = System.currentTimeMillis() / 1000L;
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+
+    private static String format(long timeMillis, String source, String player, String label, Enum<?> outcome) {
+        return "[" + source + "] " + (player == null ? "-" : player) + " " + label + " -> " + outcome.name()
+                + " (+" + (System.currentTimeMillis() - timeMillis) + "ms)";
+    }
+
+    private static final class Slot {
+        private volatile long sequence = WRITING;
+        private long timeMillis;
+        private String source;
+        private String player;
+        private String label;
+        private Enum<?> outcome;
+    }
+}
@@ -0,0 +1,8 @@
+package com.elimcgehee.cmdhider.core;
+
+public enum ExecutionVerdict {
+    ALLOWED,
+    BLOCKED_BY_RULE,
+    UNKNOWN_COMMAND,
+    NO_PERMISSION
+}
@@ -0,0 +1,92 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-handler latency histograms and outcome counters, cheap enough to leave on in production.
+public final class FilterMetrics {
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final List<String> order = new CopyOnWriteArrayList<>();
+
+    public Handler handler(String name) {
+        return handlers.computeIfAbsent(name, key -> {
+            order.add(key);
+            return new Handler();
+        });
+    }
+
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (String name : order) {
+            Handler handler = handlers.get(name);
+            LatencyHistogram.Snapshot snapshot = handler.latency.snapshot();
+            lines.add(String.format(Locale.ROOT,
+                    "%s: n=%d p50=%s p99=%s p999=%s max=%s hidden=%d blocked=%d passed=%d",
+                    name,
+                    snapshot.count(),
+                    formatNanos(snapshot.percentileNanos(50.0)),
+                    formatNanos(snapshot.percentileNanos(99.0)),
+                    formatNanos(snapshot.percentileNanos(99.9)),
+                    formatNanos(snapshot.maxNanos()),
+                    handler.hidden.sum(),
+                    handler.blocked.sum(),
+                    handler.passed.sum()));
+        }
+        return lines;
+    }
+
+    public void reset() {
+        handlers.values().forEach(Handler::reset);
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000L) {
+            return nanos + "ns";
+        }
+        if (nanos < 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1_000.0);
+        }
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+
+    public static final class Handler {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder hidden = new LongAdder();
+        private final LongAdder blocked = new LongAdder();
+        private final LongAdder passed = new LongAdder();
+
+        public void recordSince(long startNanos) {
+            latency.record(System.nanoTime() - startNanos);
+        }
+
+        public void hidden(long count) {
+            hidden.add(count);
+        }
+
+        public void blocked() {
+            blocked.increment();
+        }
+
+        public void passed(long count) {
+            passed.add(count);
+        }
+
+        public LatencyHistogram.Snapshot latency() {
+            return latency.snapshot();
+        }
+
+        private void reset() {
+            latency.reset();
+            hidden.reset();
+            blocked.reset();
+            passed.reset();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+// All glob rules of one group compiled into a single DFA, so matching costs one table step per character
+// no matter how many patterns there are. Accepting states carry the SHOW/HIDE flags of the patterns that end there,
+// and which patterns those are, so a match can be attributed without re-testing any pattern on its own.
+final class GlobAutomaton {
+
+    static final int SHOW = 1;
+    static final int HIDE = 2;
+    // \* and \? match a literal '*' or '?'.
+    static final char ESCAPE = '\\';
+
+    // Pathological pattern sets are simulated as an NFA instead of growing the table without bound.
+    private static final int MAX_STATES = 4096;
+    private static final int ANY = -1;
+    private static final int DEAD = -1;
+
+    private final char[] alphabet;
+    private final int[] asciiClasses;
+    private final int classCount;
+
+    // NFA: one run of states per pattern; state i consumes token i, loops[i] marks a '*' before it.
+    private final int[] tokens;
+    private final boolean[] loops;
+    private final int[] acceptFlags;
+    // Index of the pattern a final state belongs to, -1 for every other state.
+    private final int[] acceptPatterns;
+    private final int[] startStates;
+
+    // DFA, or null when determinization exceeded MAX_STATES.
+    private final int[] transitions;
+    private final int[] stateFlags;
+    private final int[][] statePatterns;
+
+    private GlobAutomaton(List<String> patterns, List<Integer> flags) {
+        TreeSet<Character> literals = new TreeSet<>();
+        int stateCount = 0;
+        List<int[]> compiled = new ArrayList<>();
+        List<boolean[]> compiledLoops = new ArrayList<>();
+        for (String pattern : patterns) {
+            List<Integer> patternTokens = new ArrayList<>();
+            List<Boolean> patternLoops = new ArrayList<>();
+            boolean star = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                boolean escaped = c == ESCAPE && i + 1 < pattern.length();
+                if (escaped) {
+                    c = pattern.charAt(++i);
+                }
+                if (c == '*' && !escaped) {
+                    star = true;
+                    continue;
+                }
+                patternLoops.add(star);
+                star = false;
+                if (c == '?' && !escaped) {
+                    patternTokens.add(ANY);
+                } else {
+                    literals.add(c);
+                    patternTokens.add((int) c);
+                }
+            }
+            patternLoops.add(star);
+            int[] tokenArray = patternTokens.stream().mapToInt(Integer::intValue).toArray();
+            boolean[] loopArray = new boolean[patternLoops.size()];
+            for (int i = 0; i < loopArray.length; i++) {
+                loopArray[i] = patternLoops.get(i);
+            }
+            compiled.add(tokenArray);
+            compiledLoops.add(loopArray);
+            stateCount += tokenArray.length + 1;
+        }
+
+        this.alphabet = new char[literals.size()];
+        int index = 0;
+        for (char c : literals) {
+            alphabet[index++] = c;
+        }
+        this.classCount = alphabet.length + 1;
+        this.asciiClasses = new int[128];
+        for (int i = 0; i < alphabet.length && alphabet[i] < 128; i++) {
+            asciiClasses[alphabet[i]] = i + 1;
+        }
+
+        this.tokens = new int[stateCount];
+        this.loops = new boolean[stateCount];
+        this.acceptFlags = new int[stateCount];
+        this.acceptPatterns = new int[stateCount];
+        Arrays.fill(acceptPatterns, -1);
+        this.startStates = new int[patterns.size()];
+        int offset = 0;
+        for (int p = 0; p < compiled.size(); p++) {
+            int[] tokenArray = compiled.get(p);
+            boolean[] loopArray = compiledLoops.get(p);
+            startStates[p] = offset;
+            for (int i = 0; i <= tokenArray.length; i++) {
+                // Final states consume nothing; mark them with a token no class maps to.
+                tokens[offset + i] = i < tokenArray.length ? classOf(tokenArray[i]) : Integer.MIN_VALUE;
+                loops[offset + i] = loopArray[i];
+            }
+            acceptFlags[offset + tokenArray.length] = flags.get(p);
+            acceptPatterns[offset + tokenArray.length] = p;
+            offset += tokenArray.length + 1;
+        }
+
+        Dfa dfa = determinize();
+        this.transitions = dfa == null ? null : dfa.transitions();
+        this.stateFlags = dfa == null ? null : dfa.flags();
+        this.statePatterns = dfa == null ? null : dfa.patterns();
+    }
+
+    static GlobAutomaton compile(List<String> patterns, List<Integer> flags) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        return new GlobAutomaton(patterns, flags);
+    }
+
+    // A bare "?" (or "plugin:?") names Bukkit's help alias rather than every one-character label.
+    static boolean isGlob(String rule) {
+        int colonIndex = rule.lastIndexOf(':');
+        if (rule.length() - colonIndex == 2 && rule.charAt(rule.length() - 1) == '?') {
+            return false;
+        }
+        for (int i = 0; i < rule.length(); i++) {
+            char c = rule.charAt(i);
+            if (c == ESCAPE) {
+                i++;
+            } else if (c == '*' || c == '?') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The label an exact rule names, with its escapes removed.
+    static String literal(String rule) {
+        if (rule.indexOf(ESCAPE) < 0) {
+            return rule;
+        }
+        StringBuilder literal = new StringBuilder(rule.length());
+        for (int i = 0; i < rule.length(); i++) {
+            char c = rule.charAt(i);
+            literal.append(c == ESCAPE && i + 1 < rule.length() ? rule.charAt(++i) : c);
+        }
+        return literal.toString();
+    }
+
+    // accepted, when not null, is told the index of every pattern that matched.
+    int match(CharSequence label, int from, int to, IntConsumer accepted) {
+        if (transitions == null) {
+            return simulate(label, from, to, accepted);
+        }
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            state = transitions[state * classCount + charClass(label.charAt(i))];
+            if (state == DEAD) {
+                return 0;
+            }
+        }
+        if (accepted != null) {
+            for (int pattern : statePatterns[state]) {
+                accepted.accept(pattern);
+            }
+        }
+        return stateFlags[state];
+    }
+
+    private int classOf(int token) {
+        if (token == ANY) {
+            return ANY;
+        }
+        return Arrays.binarySearch(alphabet, (char) token) + 1;
+    }
+
+    private int charClass(char raw) {
+        char c = Character.toLowerCase(raw);
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(alphabet, c);
+        return index < 0 ? 0 : index + 1;
+    }
+
+    private BitSet startSet() {
+        BitSet set = new BitSet(tokens.length);
+        for (int start : startStates) {
+            set.set(start);
+        }
+        return set;
+    }
+
+    private BitSet step(BitSet current, int charClass) {
+        BitSet next = new BitSet(tokens.length);
+        for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+            if (loops[s]) {
+                next.set(s);
+            }
+            int token = tokens[s];
+            if (token == ANY || token == charClass) {
+                next.set(s + 1);
+            }
+        }
+        return next;
+    }
+
+    private int flagsOf(BitSet set) {
+        int flags = 0;
+        for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+            flags |= acceptFlags[s];
+        }
+        return flags;
+    }
+
+    private int[] patternsOf(BitSet set) {
+        return set.stream().map(s -> acceptPatterns[s]).filter(p -> p >= 0).toArray();
+    }
+
+    private Dfa determinize() {
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<BitSet> states = new ArrayList<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        BitSet start = startSet();
+        ids.put(start, 0);
+        states.add(start);
+        pending.add(0);
+        List<int[]> rows = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            int id = pending.poll();
+            int[] row = new int[classCount];
+            for (int c = 0; c < classCount; c++) {
+                BitSet next = step(states.get(id), c);
+                if (next.isEmpty()) {
+                    row[c] = DEAD;
+                    continue;
+                }
+                Integer nextId = ids.get(next);
+                if (nextId == null) {
+                    if (states.size() >= MAX_STATES) {
+                        return null;
+                    }
+                    nextId = states.size();
+                    ids.put(next, nextId);
+                    states.add(next);
+                    pending.add(nextId);
+                }
+                row[c] = nextId;
+            }
+            while (rows.size() <= id) {
+                rows.add(null);
+            }
+            rows.set(id, row);
+        }
+
+        int[] table = new int[states.size() * classCount];
+        int[] flags = new int[states.size()];
+        int[][] patterns = new int[states.size()][];
+        for (int id = 0; id < states.size(); id++) {
+            System.arraycopy(rows.get(id), 0, table, id * classCount, classCount);
+            flags[id] = flagsOf(states.get(id));
+            patterns[id] = patternsOf(states.get(id));
+        }
+        return new Dfa(table, flags, patterns);
+    }
+
+    private int simulate(CharSequence label, int from, int to, IntConsumer accepted) {
+        BitSet current = startSet();
+        for (int i = from; i < to && !current.isEmpty(); i++) {
+            current = step(current, charClass(label.charAt(i)));
+        }
+        if (accepted != null) {
+            for (int pattern : patternsOf(current)) {
+                accepted.accept(pattern);
+            }
+        }
+        return flagsOf(current);
+    }
+
+    private record Dfa(int[] transitions, int[] flags, int[][] patterns) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Hands out dense integer IDs to labels as they are first seen, for callers without a fixed label list.
+// IDs are never reused; replace the instance to start over.
+public final class LabelIds {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public int id(String label) {
+        return ids.computeIfAbsent(label, key -> next.getAndIncrement());
+    }
+
+    // Returns -1 for labels that were never assigned an ID.
+    public int find(String label) {
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+
+    public int size() {
+        return next.get();
+    }
+}
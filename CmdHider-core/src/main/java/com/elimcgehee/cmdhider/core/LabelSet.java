@@ -0,0 +1,64 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Immutable, case-insensitive set of labels probed over a char range, so membership tests on a raw
+// command line need neither a substring nor a lowercase copy.
+public final class LabelSet {
+
+    public static final LabelSet EMPTY = new LabelSet(Set.of());
+
+    private final String[] keys;
+    private final int mask;
+    private final int size;
+
+    private LabelSet(Set<String> labels) {
+        int capacity = Integer.highestOneBit(Math.max(4, labels.size() * 2 - 1)) << 1;
+        this.keys = new String[capacity];
+        this.mask = capacity - 1;
+        this.size = labels.size();
+        for (String key : labels) {
+            int slot = Labels.hash(key, 0, key.length()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+        }
+    }
+
+    public static LabelSet of(Collection<String> labels) {
+        if (labels.isEmpty()) {
+            return EMPTY;
+        }
+        Set<String> lower = new HashSet<>();
+        for (String label : labels) {
+            lower.add(label.toLowerCase(Locale.ROOT));
+        }
+        return new LabelSet(lower);
+    }
+
+    public boolean contains(String label) {
+        return contains(label, 0, label.length());
+    }
+
+    public boolean contains(CharSequence label, int from, int to) {
+        int slot = Labels.hash(label, from, to) & mask;
+        while (true) {
+            String key = keys[slot];
+            if (key == null) {
+                return false;
+            }
+            if (Labels.regionMatches(key, label, from, to)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+}
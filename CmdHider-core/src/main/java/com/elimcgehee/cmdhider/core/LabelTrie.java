@@ -0,0 +1,162 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ObjIntConsumer;
+
+// Immutable prefix trie over root command labels, each marked allowed or hidden for one group.
+// A label also keeps the entries behind its status, credited each time the status is served.
+// Allowed labels are stored once, in trie order, so every node's allowed descendants are one contiguous
+// range and a prefix query is a walk down the trie plus a slice of that array.
+public final class LabelTrie {
+
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    public enum Status {
+        ALLOWED,
+        HIDDEN,
+        UNKNOWN
+    }
+
+    private final List<String> labels;
+    private final Node root;
+    private final String[] allowed;
+    private final int[] allowedIds;
+    private final CompiledRule[][] allowedDeciders;
+
+    private LabelTrie(List<String> labels, Node root, Frozen frozen) {
+        this.labels = labels;
+        this.root = root;
+        this.allowed = frozen.labels.toArray(new String[0]);
+        this.allowedIds = frozen.ids.stream().mapToInt(Integer::intValue).toArray();
+        this.allowedDeciders = frozen.deciders.toArray(new CompiledRule[0][]);
+    }
+
+    // Same outcome as RuleEngine#keepCompletion for each label. Label IDs are indexes into labels.
+    public static LabelTrie build(List<String> labels, String group, RuleSet rules) {
+        Builder root = new Builder();
+        for (int id = 0; id < labels.size(); id++) {
+            String label = labels.get(id).toLowerCase(Locale.ROOT);
+            Builder node = root;
+            for (int i = 0; i < label.length(); i++) {
+                node = node.child(label.charAt(i));
+            }
+            List<CompiledRule> deciders = new ArrayList<>();
+            Decision decision = rules.decision(label, group, deciders::add);
+            node.status = RuleEngine.keepCompletion(label, decision, rules) ? Status.ALLOWED : Status.HIDDEN;
+            node.deciders = deciders.isEmpty() ? NO_RULES : deciders.toArray(NO_RULES);
+            node.label = label;
+            node.id = id;
+        }
+        Frozen frozen = new Frozen();
+        return new LabelTrie(labels, root.freeze(frozen), frozen);
+    }
+
+    public boolean builtFrom(List<String> snapshotLabels) {
+        return labels == snapshotLabels;
+    }
+
+    // A single leading slash is ignored, matching how clients and Bukkit present root completions.
+    public Status status(CharSequence label) {
+        Node node = find(label);
+        if (node == null || node.status == null) {
+            return Status.UNKNOWN;
+        }
+        for (CompiledRule rule : node.deciders) {
+            rule.hit();
+        }
+        return node.status;
+    }
+
+    // Every allowed label starting with prefix, in trie order, with its label ID. Nothing is allocated here;
+    // the rules behind each label are credited as it is served, like status().
+    public void completions(CharSequence prefix, ObjIntConsumer<String> action) {
+        Node node = find(prefix);
+        if (node == null) {
+            return;
+        }
+        for (int i = node.from; i < node.to; i++) {
+            for (CompiledRule rule : allowedDeciders[i]) {
+                rule.hit();
+            }
+            action.accept(allowed[i], allowedIds[i]);
+        }
+    }
+
+    private Node find(CharSequence label) {
+        int start = label.length() > 0 && label.charAt(0) == '/' ? 1 : 0;
+        Node node = root;
+        for (int i = start; i < label.length() && node != null; i++) {
+            node = node.child(Character.toLowerCase(label.charAt(i)));
+        }
+        return node;
+    }
+
+    private static final class Node {
+
+        private final char[] keys;
+        private final Node[] children;
+        private final Status status;
+        private final CompiledRule[] deciders;
+        // Range of the allowed labels at or below this node.
+        private final int from;
+        private final int to;
+
+        private Node(char[] keys, Node[] children, Status status, CompiledRule[] deciders, int from, int to) {
+            this.keys = keys;
+            this.children = children;
+            this.status = status;
+            this.deciders = deciders;
+            this.from = from;
+            this.to = to;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    private static final class Frozen {
+
+        private final List<String> labels = new ArrayList<>();
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<CompiledRule[]> deciders = new ArrayList<>();
+    }
+
+    private static final class Builder {
+
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private Status status;
+        private CompiledRule[] deciders = NO_RULES;
+        private String label;
+        private int id;
+
+        private Builder child(char c) {
+            return children.computeIfAbsent(c, key -> new Builder());
+        }
+
+        // Pre-order: a node's own label comes before its descendants, which keeps each subtree contiguous.
+        private Node freeze(Frozen frozen) {
+            int from = frozen.labels.size();
+            if (status == Status.ALLOWED) {
+                frozen.labels.add(label);
+                frozen.ids.add(id);
+                frozen.deciders.add(deciders);
+            }
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int index = 0;
+            for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+                keys[index] = entry.getKey();
+                nodes[index] = entry.getValue().freeze(frozen);
+                index++;
+            }
+            return new Node(keys, nodes, status, deciders, from, frozen.labels.size());
+        }
+    }
+}
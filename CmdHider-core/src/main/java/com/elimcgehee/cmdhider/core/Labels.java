@@ -0,0 +1,84 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public final class Labels {
+
+    public static final String DEFAULT_GROUP = "default";
+
+    private Labels() {
+    }
+
+    public static Set<String> toLowerSet(Iterable<String> raw) {
+        Set<String> set = new HashSet<>();
+        for (String value : raw) {
+            String normalized = value == null ? "" : value;
+            if (normalized.startsWith("/")) {
+                normalized = normalized.substring(1);
+            }
+            // Regex bodies are case-sensitive syntax (\S vs \s); they are matched case-insensitively instead.
+            if (normalized.regionMatches(true, 0, PatternRules.REGEX_PREFIX, 0, PatternRules.REGEX_PREFIX.length())) {
+                set.add(PatternRules.REGEX_PREFIX + normalized.substring(PatternRules.REGEX_PREFIX.length()));
+                continue;
+            }
+            set.add(normalized.toLowerCase(Locale.ROOT));
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    public static String normalizeGroup(String group) {
+        if (group == null || group.isEmpty()) {
+            return DEFAULT_GROUP;
+        }
+        return group.toLowerCase(Locale.ROOT);
+    }
+
+    // Start of the label in a raw command line: past a leading slash, if any.
+    public static int labelStart(CharSequence line) {
+        return line.length() > 0 && line.charAt(0) == '/' ? 1 : 0;
+    }
+
+    // End (exclusive) of the label that starts at from: the first space, or the end of the line.
+    public static int labelEnd(CharSequence line, int from) {
+        for (int i = from; i < line.length(); i++) {
+            if (line.charAt(i) == ' ') {
+                return i;
+            }
+        }
+        return line.length();
+    }
+
+    public static boolean isNamespaced(CharSequence label) {
+        for (int i = 0; i < label.length(); i++) {
+            if (label.charAt(i) == ':') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Case-insensitive hash over a char range; keys stored lowercase hash identically.
+    static int hash(CharSequence label, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + Character.toLowerCase(label.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // Compares a lowercase key against a char range without lowercasing the range first.
+    static boolean regionMatches(String key, CharSequence label, int from, int to) {
+        if (key.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != Character.toLowerCase(label.charAt(from + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Glob ("essentials:*", "*ban*", "mv?") and "regex:" rules of one group, compiled once at load time.
+final class PatternRules {
+
+    static final String REGEX_PREFIX = "regex:";
+
+    private final GlobAutomaton globs;
+    private final CompiledRule[] globRules;
+    private final Regex showRegex;
+    private final Regex hideRegex;
+
+    private PatternRules(GlobAutomaton globs, CompiledRule[] globRules, Regex showRegex, Regex hideRegex) {
+        this.globs = globs;
+        this.globRules = globRules;
+        this.showRegex = showRegex;
+        this.hideRegex = hideRegex;
+    }
+
+    static boolean isPattern(String rule) {
+        return rule.startsWith(REGEX_PREFIX) || GlobAutomaton.isGlob(rule);
+    }
+
+    static PatternRules compile(Collection<CompiledRule> compiled) {
+        List<String> globs = new ArrayList<>();
+        List<Integer> globFlags = new ArrayList<>();
+        List<CompiledRule> globRules = new ArrayList<>();
+        List<CompiledRule> showRegex = new ArrayList<>();
+        List<CompiledRule> hideRegex = new ArrayList<>();
+        for (CompiledRule rule : compiled) {
+            String pattern = rule.pattern();
+            if (pattern.startsWith(REGEX_PREFIX)) {
+                (rule.hide() ? hideRegex : showRegex).add(rule);
+            } else if (GlobAutomaton.isGlob(pattern)) {
+                globs.add(pattern);
+                globFlags.add(rule.hide() ? GlobAutomaton.HIDE : GlobAutomaton.SHOW);
+                globRules.add(rule);
+            }
+        }
+        if (globs.isEmpty() && showRegex.isEmpty() && hideRegex.isEmpty()) {
+            return null;
+        }
+        return new PatternRules(GlobAutomaton.compile(globs, globFlags), globRules.toArray(new CompiledRule[0]),
+                Regex.combine(showRegex), Regex.combine(hideRegex));
+    }
+
+    // A standalone matcher for one glob or regex entry, for attribution and shadowing checks only.
+    static Pattern matcher(String rule) {
+        if (rule.startsWith(REGEX_PREFIX)) {
+            return Pattern.compile(rule.substring(REGEX_PREFIX.length()), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        }
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < rule.length(); i++) {
+            char c = rule.charAt(i);
+            if (c == GlobAutomaton.ESCAPE && i + 1 < rule.length()) {
+                regex.append(Pattern.quote(String.valueOf(rule.charAt(++i))));
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    // sink, when not null, is given every glob entry that matched and the first matching entry of each regex list.
+    Decision match(CharSequence label, int from, int to, Consumer<CompiledRule> sink) {
+        int flags = globs == null ? 0
+                : globs.match(label, from, to, sink == null ? null : pattern -> sink.accept(globRules[pattern]));
+        if (showRegex != null || hideRegex != null) {
+            CharSequence region = label.subSequence(from, to);
+            if (showRegex != null && showRegex.matches(region, sink)) {
+                flags |= GlobAutomaton.SHOW;
+            }
+            if (hideRegex != null && hideRegex.matches(region, sink)) {
+                flags |= GlobAutomaton.HIDE;
+            }
+        }
+        return Decision.of((flags & GlobAutomaton.SHOW) != 0, (flags & GlobAutomaton.HIDE) != 0);
+    }
+
+    // Backreferences count groups from the start of the whole pattern, and a group name may only be used
+    // once in it, so entries with either would match differently or fail to compile inside the alternation.
+    static boolean mergeable(String expression) {
+        for (int i = 0; i + 1 < expression.length(); i++) {
+            char c = expression.charAt(i);
+            char next = expression.charAt(i + 1);
+            if (c == '\\') {
+                if (next >= '1' && next <= '9' || next == 'k') {
+                    return false;
+                }
+                i++;
+            } else if (c == '(' && next == '?' && i + 3 < expression.length() && expression.charAt(i + 2) == '<'
+                    && Character.isLetter(expression.charAt(i + 3))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Regex rules cannot join the DFA, so each list is folded into one alternation and matched in a single pass.
+    // Every entry is wrapped in a capturing group; groups[i] is entry i's group, past the entry's own groups
+    // and those of the entries before it, so the same Matcher tells which entry matched.
+    // Entries that can't be merged without changing meaning keep their own Pattern and are tried after it.
+    private record Regex(Pattern pattern, CompiledRule[] rules, int[] groups, Pattern[] separate,
+                         CompiledRule[] separateRules) {
+
+        private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+        static Regex combine(List<CompiledRule> rules) {
+            if (rules.isEmpty()) {
+                return null;
+            }
+            List<CompiledRule> merged = new ArrayList<>();
+            List<CompiledRule> separate = new ArrayList<>();
+            StringBuilder combined = new StringBuilder();
+            List<Integer> groups = new ArrayList<>();
+            int group = 1;
+            for (CompiledRule rule : rules) {
+                String expression = expression(rule);
+                Pattern own;
+                try {
+                    own = Pattern.compile(expression);
+                } catch (PatternSyntaxException ex) {
+                    throw new IllegalArgumentException("Invalid regex rule '" + expression + "': " + ex.getDescription(), ex);
+                }
+                if (!mergeable(expression)) {
+                    separate.add(rule);
+                    continue;
+                }
+                if (!combined.isEmpty()) {
+                    combined.append('|');
+                }
+                combined.append('(').append(expression).append(')');
+                merged.add(rule);
+                groups.add(group);
+                group += 1 + own.matcher("").groupCount();
+            }
+            Pattern pattern = null;
+            if (!merged.isEmpty()) {
+                try {
+                    pattern = Pattern.compile(combined.toString(), FLAGS);
+                } catch (PatternSyntaxException ex) {
+                    // Something else only valid on its own, e.g. a (?x) comment swallowing the closing paren.
+                    separate = new ArrayList<>(rules);
+                    merged.clear();
+                    groups.clear();
+                }
+            }
+            Pattern[] separatePatterns = new Pattern[separate.size()];
+            for (int i = 0; i < separatePatterns.length; i++) {
+                separatePatterns[i] = Pattern.compile(expression(separate.get(i)), FLAGS);
+            }
+            return new Regex(pattern, merged.toArray(new CompiledRule[0]),
+                    groups.stream().mapToInt(Integer::intValue).toArray(), separatePatterns,
+                    separate.toArray(new CompiledRule[0]));
+        }
+
+        private static String expression(CompiledRule rule) {
+            return rule.pattern().substring(REGEX_PREFIX.length());
+        }
+
+        boolean matches(CharSequence region, Consumer<CompiledRule> sink) {
+            if (pattern != null) {
+                Matcher matcher = pattern.matcher(region);
+                if (matcher.matches()) {
+                    if (sink != null) {
+                        for (int i = 0; i < groups.length; i++) {
+                            if (matcher.start(groups[i]) >= 0) {
+                                sink.accept(rules[i]);
+                                break;
+                            }
+                        }
+                    }
+                    return true;
+                }
+            }
+            for (int i = 0; i < separate.length; i++) {
+                if (separate[i].matcher(region).matches()) {
+                    if (sink != null) {
+                        sink.accept(separateRules[i]);
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.elimcgehee.cmdhider.core;
+
+// Platform hook: whether a subject may use a command once no always-show/always-hide rule applies.
+@FunctionalInterface
+public interface PermissionLookup<S> {
+
+    boolean canUse(S subject, String label);
+}
@@ -0,0 +1,70 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-key token buckets for cheap requests clients can send in bulk (tab completes, unknown labels).
+// Checked before any lookup so a flood costs one map read per request; keys must be removed on quit.
+// Each bucket also counts the requests it turned away, so heavy probers can be told apart.
+public final class ProbeLimiter<K> {
+
+    private final Map<K, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder throttled = new LongAdder();
+
+    public boolean tryAcquire(K key, RateLimit limit) {
+        if (!limit.enabled()) {
+            return true;
+        }
+        if (buckets.computeIfAbsent(key, k -> new Bucket(limit.burst())).tryAcquire(limit, System.nanoTime())) {
+            return true;
+        }
+        throttled.increment();
+        return false;
+    }
+
+    public void remove(K key) {
+        buckets.remove(key);
+    }
+
+    public int tracked() {
+        return buckets.size();
+    }
+
+    public long throttled() {
+        return throttled.sum();
+    }
+
+    public long throttled(K key) {
+        Bucket bucket = buckets.get(key);
+        return bucket == null ? 0L : bucket.throttled();
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long lastRefill;
+        private long throttled;
+
+        Bucket(int burst) {
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire(RateLimit limit, long now) {
+            // The limit can shrink on reload; refill against the current shape only.
+            tokens = Math.min(limit.burst(), tokens + (now - lastRefill) * limit.perSecond() / 1_000_000_000.0);
+            lastRefill = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            throttled++;
+            return false;
+        }
+
+        synchronized long throttled() {
+            return throttled;
+        }
+    }
+}
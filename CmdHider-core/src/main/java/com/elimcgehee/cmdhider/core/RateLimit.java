@@ -0,0 +1,16 @@
+package com.elimcgehee.cmdhider.core;
+
+// Token bucket shape: up to burst requests at once, refilled at perSecond. A non-positive rate disables the limit.
+public record RateLimit(int burst, double perSecond) {
+
+    public static final RateLimit UNLIMITED = new RateLimit(0, 0.0);
+
+    public RateLimit {
+        burst = Math.max(1, burst);
+        perSecond = Math.max(0.0, perSecond);
+    }
+
+    public boolean enabled() {
+        return perSecond > 0.0;
+    }
+}
@@ -0,0 +1,74 @@
+package com.elimcgehee.cmdhider.core;
+
+// The show/hide/namespace/permission decision order shared by the Paper and Velocity plugins.
+public final class RuleEngine<S> {
+
+    private final CommandLookup commands;
+    private final PermissionLookup<? super S> permissions;
+
+    public RuleEngine(CommandLookup commands, PermissionLookup<? super S> permissions) {
+        this.commands = commands;
+        this.permissions = permissions;
+    }
+
+    public Verdict evaluate(S subject, String label, String group, RuleSet rules) {
+        return evaluate(subject, label, group, rules, permissions);
+    }
+
+    public Verdict evaluate(S subject, String label, String group, RuleSet rules, PermissionLookup<? super S> permissions) {
+        Decision decision = rules.decision(label, group);
+        if (decision.alwaysShow()) {
+            return Verdict.SHOWN_BY_RULE;
+        }
+        if (decision.alwaysHide()) {
+            return Verdict.HIDDEN_BY_RULE;
+        }
+        if (rules.hideNamespaced() && Labels.isNamespaced(label)) {
+            return Verdict.HIDDEN_NAMESPACED;
+        }
+        if (rules.filterByPermission() && !permissions.canUse(subject, label)) {
+            return Verdict.HIDDEN_NO_PERMISSION;
+        }
+        return Verdict.VISIBLE;
+    }
+
+    // Completions are filtered on rules alone; permission checks per keystroke are too costly.
+    public boolean keepCompletion(String completion, String group, RuleSet rules) {
+        return keepCompletion(completion, rules.decision(completion, group), rules);
+    }
+
+    static boolean keepCompletion(String completion, Decision decision, RuleSet rules) {
+        if (decision.alwaysShow()) {
+            return true;
+        }
+        if (decision.alwaysHide()) {
+            return false;
+        }
+        return !rules.hideNamespaced() || !Labels.isNamespaced(completion);
+    }
+
+    public boolean canUse(S subject, String label, String group, RuleSet rules) {
+        Decision decision = rules.decision(label, group);
+        if (decision.alwaysShow()) {
+            return true;
+        }
+        if (decision.alwaysHide()) {
+            return false;
+        }
+        return permissions.canUse(subject, label);
+    }
+
+    public ExecutionVerdict checkExecution(S subject, String label, String group, RuleSet rules, boolean checkPermission) {
+        // Block always-hide commands outright.
+        if (rules.decision(label, group).alwaysHide()) {
+            return ExecutionVerdict.BLOCKED_BY_RULE;
+        }
+        if (!commands.isKnown(label)) {
+            return ExecutionVerdict.UNKNOWN_COMMAND;
+        }
+        if (checkPermission && !canUse(subject, label, group, rules)) {
+            return ExecutionVerdict.NO_PERMISSION;
+        }
+        return ExecutionVerdict.ALLOWED;
+    }
+}
@@ -0,0 +1,51 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// The entries behind a cached result and how many of its decisions each made. Serving the result replays
+// them into the hit counters, so a cache hit counts the same as the uncached lookups it stands for.
+public final class RuleHits {
+
+    public static final RuleHits NONE = new RuleHits(new CompiledRule[0], new long[0]);
+
+    private final CompiledRule[] rules;
+    private final long[] counts;
+
+    private RuleHits(CompiledRule[] rules, long[] counts) {
+        this.rules = rules;
+        this.counts = counts;
+    }
+
+    public void credit() {
+        for (int i = 0; i < rules.length; i++) {
+            rules[i].hit(counts[i]);
+        }
+    }
+
+    // Collects entries from RuleSet#decision(label, group, sink) while a cached result is built.
+    public static final class Tally implements Consumer<CompiledRule> {
+
+        private final Map<CompiledRule, Long> counts = new IdentityHashMap<>();
+
+        @Override
+        public void accept(CompiledRule rule) {
+            counts.merge(rule, 1L, Long::sum);
+        }
+
+        public RuleHits build() {
+            if (counts.isEmpty()) {
+                return NONE;
+            }
+            CompiledRule[] rules = new CompiledRule[counts.size()];
+            long[] values = new long[counts.size()];
+            int index = 0;
+            for (Map.Entry<CompiledRule, Long> entry : counts.entrySet()) {
+                rules[index] = entry.getKey();
+                values[index++] = entry.getValue();
+            }
+            return new RuleHits(rules, values);
+        }
+    }
+}
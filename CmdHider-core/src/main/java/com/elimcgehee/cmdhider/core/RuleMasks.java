@@ -0,0 +1,83 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.List;
+
+// A group's rule outcomes over a dense label list, one bit per label ID. Everything the rules decide on
+// their own is settled here; only the labels left in pending() still need a permission check.
+public final class RuleMasks {
+
+    private final List<String> labels;
+    private final long[] shown;
+    private final long[] hiddenByRule;
+    private final long[] hiddenNamespaced;
+    private final long[] pending;
+    private final RuleHits hits;
+
+    private RuleMasks(List<String> labels, long[] shown, long[] hiddenByRule, long[] hiddenNamespaced, long[] pending,
+                      RuleHits hits) {
+        this.labels = labels;
+        this.shown = shown;
+        this.hiddenByRule = hiddenByRule;
+        this.hiddenNamespaced = hiddenNamespaced;
+        this.pending = pending;
+        this.hits = hits;
+    }
+
+    // Same decision order as RuleEngine#evaluate: show, hide, namespace, then permission.
+    public static RuleMasks compute(List<String> labels, String group, RuleSet rules) {
+        int size = labels.size();
+        long[] shown = Bitsets.allocate(size);
+        long[] hiddenByRule = Bitsets.allocate(size);
+        long[] hiddenNamespaced = Bitsets.allocate(size);
+        long[] pending = Bitsets.allocate(size);
+        RuleHits.Tally tally = new RuleHits.Tally();
+        for (int id = 0; id < size; id++) {
+            String label = labels.get(id);
+            Decision decision = rules.decision(label, group, tally);
+            if (decision.alwaysShow()) {
+                Bitsets.set(shown, id);
+            } else if (decision.alwaysHide()) {
+                Bitsets.set(hiddenByRule, id);
+            } else if (rules.hideNamespaced() && Labels.isNamespaced(label)) {
+                Bitsets.set(hiddenNamespaced, id);
+            } else if (rules.filterByPermission()) {
+                Bitsets.set(pending, id);
+            } else {
+                Bitsets.set(shown, id);
+            }
+        }
+        return new RuleMasks(labels, shown, hiddenByRule, hiddenNamespaced, pending, tally.build());
+    }
+
+    // Called once per command list these masks decide, cached or not.
+    public void credit() {
+        hits.credit();
+    }
+
+    public boolean builtFrom(List<String> snapshotLabels) {
+        return labels == snapshotLabels;
+    }
+
+    public long[] pending() {
+        return pending;
+    }
+
+    // shown | permitted, word by word; permitted only needs bits for pending labels.
+    public long[] visible(long[] permitted) {
+        long[] visible = shown.clone();
+        for (int i = 0; i < visible.length; i++) {
+            visible[i] |= permitted[i] & pending[i];
+        }
+        return visible;
+    }
+
+    public Verdict verdict(int id, long[] visible) {
+        if (Bitsets.get(visible, id)) {
+            return Verdict.VISIBLE;
+        }
+        if (Bitsets.get(hiddenByRule, id)) {
+            return Verdict.HIDDEN_BY_RULE;
+        }
+        return Bitsets.get(hiddenNamespaced, id) ? Verdict.HIDDEN_NAMESPACED : Verdict.HIDDEN_NO_PERMISSION;
+    }
+}
@@ -0,0 +1,142 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Hit counts and static overlap findings for the entries of one or more RuleSets (the proxy compiles one per
+// backend). Built on demand for /cmdhider rules and JMX; nothing here runs on the filtering path.
+public final class RuleReport {
+
+    private final Map<String, Long> hits;
+    private final List<String> shadowed;
+
+    private RuleReport(Map<String, Long> hits, List<String> shadowed) {
+        this.hits = hits;
+        this.shadowed = shadowed;
+    }
+
+    public static RuleReport of(Collection<RuleSet> ruleSets) {
+        Map<String, Long> hits = new LinkedHashMap<>();
+        Set<String> shadowed = new LinkedHashSet<>();
+        for (RuleSet rules : ruleSets) {
+            for (CompiledRule rule : rules.rules()) {
+                hits.merge(rule.describe(), rule.hits(), Long::sum);
+            }
+            findShadowed(rules, null, shadowed);
+            for (String group : rules.groups()) {
+                findShadowed(rules, group, shadowed);
+            }
+        }
+        return new RuleReport(hits, List.copyOf(shadowed));
+    }
+
+    public Map<String, Long> hits() {
+        return hits;
+    }
+
+    public List<String> hot(int limit) {
+        return hits.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> entry.getKey() + ": " + entry.getValue())
+                .toList();
+    }
+
+    public List<String> neverMatched() {
+        return hits.entrySet().stream()
+                .filter(entry -> entry.getValue() == 0)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    public List<String> shadowed() {
+        return shadowed;
+    }
+
+    public List<String> report(int hotLimit) {
+        List<String> lines = new ArrayList<>();
+        List<String> hot = hot(hotLimit);
+        List<String> dead = neverMatched();
+        lines.add(String.format(Locale.ROOT, "%d rules, %d never matched, %d shadowed (counts since last reload)",
+                hits.size(), dead.size(), shadowed.size()));
+        lines.add("Hot:");
+        hot.forEach(line -> lines.add("  " + line));
+        lines.add("Never matched:");
+        dead.forEach(line -> lines.add("  " + line));
+        lines.add("Shadowed:");
+        shadowed.forEach(line -> lines.add("  " + line));
+        return lines;
+    }
+
+    // Only the group's own entries are checked against its effective list; global ones are checked once.
+    private static void findShadowed(RuleSet rules, String group, Set<String> findings) {
+        List<CompiledRule> effective = rules.effectiveRules(group);
+        Map<CompiledRule, Pattern> matchers = new HashMap<>();
+        for (CompiledRule rule : effective) {
+            if (rule.isPattern()) {
+                matchers.put(rule, PatternRules.matcher(rule.pattern()));
+            }
+        }
+        for (CompiledRule rule : effective) {
+            if (!sameGroup(rule.group(), group)) {
+                continue;
+            }
+            effective.stream()
+                    .filter(other -> other != rule && covers(other, matchers.get(other), rule))
+                    .min(Comparator.comparing((CompiledRule other) -> other.group() != null)
+                            .thenComparing(CompiledRule::pattern))
+                    .ifPresent(other -> findings.add(describeOverlap(rule, other)));
+        }
+    }
+
+    private static String describeOverlap(CompiledRule rule, CompiledRule other) {
+        if (rule.hide() && !other.hide()) {
+            return rule.describe() + " is listed anyway because of " + other.describe() + " (still blocked on execute)";
+        }
+        if (!rule.hide() && other.hide()) {
+            return rule.describe() + " still blocks execution because of " + other.describe();
+        }
+        return rule.describe() + " is redundant with " + other.describe();
+    }
+
+    // Whether every label the rule matches is also matched by other.
+    private static boolean covers(CompiledRule other, Pattern otherMatcher, CompiledRule rule) {
+        String pattern = rule.pattern();
+        if (pattern.equals(other.pattern())) {
+            // Report an identical pair once: the group entry against the global one, or the later of two.
+            return rule.group() != null && other.group() == null
+                    || sameGroup(rule.group(), other.group()) && rule.hide() && !other.hide();
+        }
+        if (!other.isPattern()) {
+            // "label" also covers "plugin:label".
+            return !rule.isPattern() && rule.label().endsWith(":" + other.label());
+        }
+        if (!rule.isPattern()) {
+            String label = rule.label();
+            int colonIndex = label.indexOf(':');
+            return otherMatcher.matcher(label).matches()
+                    || colonIndex >= 0 && otherMatcher.matcher(label.substring(colonIndex + 1)).matches();
+        }
+        // Glob inside glob: sound when the wider glob only uses '*', since each wildcard of the narrower one
+        // then falls inside a '*' of the wider one. Regex containment is not attempted.
+        return !pattern.startsWith(PatternRules.REGEX_PREFIX)
+                && !other.pattern().startsWith(PatternRules.REGEX_PREFIX)
+                && other.pattern().indexOf('?') < 0
+                && otherMatcher.matcher(pattern).matches();
+    }
+
+    private static boolean sameGroup(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
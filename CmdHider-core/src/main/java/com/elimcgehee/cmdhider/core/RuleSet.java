@@ -0,0 +1,241 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Compiled, immutable form of the always-show/always-hide/per-group lists plus the flags that drive filtering.
+public final class RuleSet {
+
+    private static final Consumer<CompiledRule> COUNT = CompiledRule::hit;
+
+    private final boolean hideNamespaced;
+    private final boolean filterByPermission;
+    private final DecisionIndex defaultDecisions;
+    private final Map<String, DecisionIndex> groupDecisions;
+    // Every hide rule of every group, ignoring show rules: a cheap "could anyone be blocked from this?" pre-check.
+    private final DecisionIndex anyHide;
+    // Global entries first, then each group's own, in config order as far as the sets preserve it.
+    private final List<CompiledRule> rules;
+    private final List<CompiledRule> globalRules;
+    private final Map<String, List<CompiledRule>> groupRules;
+    // Decisions a label inherits from the other labels of its command when no rule names it; see withAliases.
+    private final DecisionIndex defaultAliasDecisions;
+    private final Map<String, DecisionIndex> groupAliasDecisions;
+    // Where decision() reports the entries behind each answer: their hit counters, or nowhere for uncounted().
+    private final Consumer<CompiledRule> sink;
+
+    public RuleSet(boolean hideNamespaced,
+                   boolean filterByPermission,
+                   Set<String> alwaysShow,
+                   Set<String> alwaysHide,
+                   Map<String, Set<String>> groupAlwaysShow,
+                   Map<String, Set<String>> groupAlwaysHide) {
+        this.hideNamespaced = hideNamespaced;
+        this.filterByPermission = filterByPermission;
+        this.globalRules = compileRules(null, alwaysShow, alwaysHide);
+        this.groupRules = compileGroupRules(groupAlwaysShow, groupAlwaysHide);
+        List<CompiledRule> all = new ArrayList<>(globalRules);
+        groupRules.values().forEach(all::addAll);
+        this.rules = List.copyOf(all);
+        this.defaultDecisions = DecisionIndex.compile(globalRules);
+        Map<String, DecisionIndex> compiled = new HashMap<>();
+        groupRules.forEach((group, own) -> {
+            List<CompiledRule> effective = new ArrayList<>(globalRules);
+            effective.addAll(own);
+            compiled.put(group, DecisionIndex.compile(effective));
+        });
+        this.groupDecisions = Map.copyOf(compiled);
+        // The pre-check runs before the real lookup and never counts, or the same hit would count twice.
+        List<CompiledRule> allHide = new ArrayList<>();
+        for (CompiledRule rule : all) {
+            if (rule.hide()) {
+                allHide.add(rule);
+            }
+        }
+        this.anyHide = DecisionIndex.compile(allHide);
+        this.defaultAliasDecisions = null;
+        this.groupAliasDecisions = Map.of();
+        this.sink = COUNT;
+    }
+
+    private RuleSet(RuleSet source, DecisionIndex defaultAliasDecisions, Map<String, DecisionIndex> groupAliasDecisions,
+                    Consumer<CompiledRule> sink) {
+        this.hideNamespaced = source.hideNamespaced;
+        this.filterByPermission = source.filterByPermission;
+        this.defaultDecisions = source.defaultDecisions;
+        this.groupDecisions = source.groupDecisions;
+        this.anyHide = source.anyHide;
+        this.rules = source.rules;
+        this.globalRules = source.globalRules;
+        this.groupRules = source.groupRules;
+        this.defaultAliasDecisions = defaultAliasDecisions;
+        this.groupAliasDecisions = groupAliasDecisions;
+        this.sink = sink;
+    }
+
+    // The same rules without hit counting, for building caches: the cache credits the entries behind a result
+    // each time it serves it, so counting the build as well would count every decision once too often.
+    public RuleSet uncounted() {
+        return reportingTo(null);
+    }
+
+    // The same rules with decisions reported to sink instead of the hit counters, e.g. a RuleHits.Tally.
+    public RuleSet reportingTo(Consumer<CompiledRule> sink) {
+        return sink == this.sink ? this : new RuleSet(this, defaultAliasDecisions, groupAliasDecisions, sink);
+    }
+
+    // These rules applied to whole alias classes: a label no rule names takes the merged decision of the plain
+    // (un-namespaced) labels of the same command that are named, so hiding "ban" also hides "eban" and
+    // "essentials:eban". Namespaced labels never pass a decision on, so hiding "bukkit:help" leaves "?" alone,
+    // and they only inherit hides, so a shown alias can't undo hide-namespaced. A label's own rule still wins.
+    // Resolved here once per command map; lookups for unnamed labels cost one extra table probe and credit the
+    // entries they inherited from. Hit counters are shared with this RuleSet.
+    public RuleSet withAliases(AliasGraph aliases) {
+        if (aliases.classes().isEmpty()) {
+            return this;
+        }
+        Map<String, DecisionIndex> groups = new HashMap<>();
+        groupDecisions.forEach((group, index) -> groups.put(group, inherited(index, aliases)));
+        return new RuleSet(this, inherited(defaultDecisions, aliases), Map.copyOf(groups), sink);
+    }
+
+    private static DecisionIndex inherited(DecisionIndex index, AliasGraph aliases) {
+        Map<String, Decision> entries = new HashMap<>();
+        Map<String, List<CompiledRule>> owners = new HashMap<>();
+        for (List<String> labels : aliases.classes()) {
+            Decision merged = Decision.DEFER;
+            List<CompiledRule> sources = new ArrayList<>();
+            List<String> unnamed = new ArrayList<>();
+            for (String label : labels) {
+                List<CompiledRule> deciders = new ArrayList<>();
+                Decision own = index.lookup(label, 0, label.length(), deciders::add);
+                if (own == Decision.DEFER) {
+                    unnamed.add(label);
+                } else if (!Labels.isNamespaced(label)) {
+                    merged = merged.merge(own);
+                    sources.addAll(deciders);
+                }
+            }
+            if (merged == Decision.DEFER) {
+                continue;
+            }
+            for (String label : unnamed) {
+                if (!Labels.isNamespaced(label)) {
+                    entries.put(label, merged);
+                    owners.put(label, sources);
+                } else if (merged.alwaysHide()) {
+                    entries.put(label, Decision.HIDE);
+                    owners.put(label, sources.stream().filter(CompiledRule::hide).toList());
+                }
+            }
+        }
+        return DecisionIndex.exact(entries, owners);
+    }
+
+    public boolean hideNamespaced() {
+        return hideNamespaced;
+    }
+
+    public boolean filterByPermission() {
+        return filterByPermission;
+    }
+
+    public List<CompiledRule> rules() {
+        return rules;
+    }
+
+    // The entries that apply to the group: the global lists plus the group's own.
+    public List<CompiledRule> effectiveRules(String group) {
+        List<CompiledRule> own = group == null ? null : groupRules.get(Labels.normalizeGroup(group));
+        if (own == null) {
+            return globalRules;
+        }
+        List<CompiledRule> effective = new ArrayList<>(globalRules);
+        effective.addAll(own);
+        return effective;
+    }
+
+    public Set<String> groups() {
+        return groupRules.keySet();
+    }
+
+    public Decision decision(String label, String group) {
+        return decision(label, group, sink);
+    }
+
+    // Reports the entries behind the decision to the given sink instead, e.g. to tally them for a cached result.
+    public Decision decision(String label, String group, Consumer<CompiledRule> sink) {
+        Decision own = decisionsFor(group).lookup(label, sink);
+        if (own != Decision.DEFER || defaultAliasDecisions == null) {
+            return own;
+        }
+        return aliasDecisionsFor(group).lookup(label, sink);
+    }
+
+    public Decision decision(CharSequence label, int from, int to, String group) {
+        Decision own = decisionsFor(group).lookup(label, from, to, sink);
+        if (own != Decision.DEFER || defaultAliasDecisions == null) {
+            return own;
+        }
+        return aliasDecisionsFor(group).lookup(label, from, to, sink);
+    }
+
+    // Patterns of the entries behind these labels' decisions, distinct and comma-separated, or null when no entry
+    // decides any of them. For diagnostics: the explicit sink keeps these lookups out of the hit counters.
+    public String decidingRules(Collection<String> labels, String group) {
+        Set<String> patterns = new LinkedHashSet<>();
+        for (String label : labels) {
+            decision(label, group, rule -> patterns.add(rule.pattern()));
+        }
+        return patterns.isEmpty() ? null : String.join(", ", patterns);
+    }
+
+    // False means no group's rules hide this label, whatever the player's group is.
+    public boolean mayHide(CharSequence label, int from, int to) {
+        return anyHide.lookup(label, from, to, null).alwaysHide();
+    }
+
+    private DecisionIndex decisionsFor(String group) {
+        DecisionIndex index = group == null ? null : groupDecisions.get(group);
+        if (index == null) {
+            index = groupDecisions.getOrDefault(Labels.normalizeGroup(group), defaultDecisions);
+        }
+        return index;
+    }
+
+    private DecisionIndex aliasDecisionsFor(String group) {
+        DecisionIndex index = group == null ? null : groupAliasDecisions.get(group);
+        if (index == null) {
+            index = groupAliasDecisions.getOrDefault(Labels.normalizeGroup(group), defaultAliasDecisions);
+        }
+        return index;
+    }
+
+    private static List<CompiledRule> compileRules(String group, Set<String> show, Set<String> hide) {
+        List<CompiledRule> compiled = new ArrayList<>();
+        show.forEach(pattern -> compiled.add(new CompiledRule(group, false, pattern)));
+        hide.forEach(pattern -> compiled.add(new CompiledRule(group, true, pattern)));
+        return List.copyOf(compiled);
+    }
+
+    private static Map<String, List<CompiledRule>> compileGroupRules(Map<String, Set<String>> groupAlwaysShow,
+                                                                     Map<String, Set<String>> groupAlwaysHide) {
+        Set<String> groups = new HashSet<>(groupAlwaysShow.keySet());
+        groups.addAll(groupAlwaysHide.keySet());
+        Map<String, List<CompiledRule>> compiled = new HashMap<>();
+        for (String group : groups) {
+            compiled.put(group, compileRules(group,
+                    groupAlwaysShow.getOrDefault(group, Collections.emptySet()),
+                    groupAlwaysHide.getOrDefault(group, Collections.emptySet())));
+        }
+        return Map.copyOf(compiled);
+    }
+}
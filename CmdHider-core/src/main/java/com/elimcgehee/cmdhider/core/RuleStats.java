@@ -0,0 +1,68 @@
+package com.elimcgehee.cmdhider.core;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Publishes RuleReport over JMX. The supplier is read per call, so the bean follows reloads without re-registering.
+public final class RuleStats implements RuleStatsMXBean {
+
+    private static final int HOT_LIMIT = 20;
+
+    private final Supplier<Collection<RuleSet>> ruleSets;
+    private final ObjectName name;
+
+    public RuleStats(String platform, Supplier<Collection<RuleSet>> ruleSets) throws JMException {
+        this.ruleSets = ruleSets;
+        this.name = new ObjectName("com.elimcgehee.cmdhider:type=RuleStats,platform=" + platform);
+    }
+
+    public RuleReport report() {
+        return RuleReport.of(ruleSets.get());
+    }
+
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        // A plugin reload leaves the previous instance behind; replace it.
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(this, name);
+    }
+
+    public void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException ignored) {
+            // Already gone.
+        }
+    }
+
+    @Override
+    public Map<String, Long> getHits() {
+        return report().hits();
+    }
+
+    @Override
+    public List<String> getHotRules() {
+        return report().hot(HOT_LIMIT);
+    }
+
+    @Override
+    public List<String> getNeverMatchedRules() {
+        return report().neverMatched();
+    }
+
+    @Override
+    public List<String> getShadowedRules() {
+        return report().shadowed();
+    }
+}
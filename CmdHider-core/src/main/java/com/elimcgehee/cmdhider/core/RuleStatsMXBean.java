@@ -0,0 +1,16 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.List;
+import java.util.Map;
+
+// JMX view of the live rules' hit counters, registered as com.elimcgehee.cmdhider:type=RuleStats,platform=<name>.
+public interface RuleStatsMXBean {
+
+    Map<String, Long> getHits();
+
+    List<String> getHotRules();
+
+    List<String> getNeverMatchedRules();
+
+    List<String> getShadowedRules();
+}
@@ -0,0 +1,40 @@
+package com.elimcgehee.cmdhider.core;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("cmdhider.TabComplete")
+@Label("Tab Completions Filtered")
+@Description("One pass of CmdHider over a command tab completion")
+public class TabCompleteFlightEvent extends CmdHiderFlightEvent {
+
+    @Label("Label")
+    String label;
+
+    @Label("Rule")
+    @Description("Patterns of the config entries that decided the label, if any")
+    String rule;
+
+    @Label("Verdict")
+    String verdict;
+
+    @Label("Completions")
+    int commandCount;
+
+    @Label("Hidden")
+    int hiddenCount;
+
+    public void emit(String source, String player, String group, String label, String rule,
+                     String verdict, int commandCount, int hiddenCount) {
+        this.source = source;
+        this.player = player;
+        this.group = group;
+        this.label = label;
+        this.rule = rule;
+        this.verdict = verdict;
+        this.commandCount = commandCount;
+        this.hiddenCount = hiddenCount;
+        commit();
+    }
+}
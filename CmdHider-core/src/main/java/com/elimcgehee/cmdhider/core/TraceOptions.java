@@ -0,0 +1,25 @@
+package com.elimcgehee.cmdhider.core;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Sampling, rate limit and player/label filters for DecisionTrace; empty filters match everything.
+public record TraceOptions(boolean enabled, int sampleEvery, int maxPerSecond, Set<String> players, Set<String> labels) {
+
+    public static final TraceOptions DISABLED = new TraceOptions(false, 1, 0, Set.of(), Set.of());
+
+    public TraceOptions {
+        sampleEvery = Math.max(1, sampleEvery);
+        maxPerSecond = Math.max(0, maxPerSecond);
+        players = caseInsensitive(players);
+        labels = caseInsensitive(labels);
+    }
+
+    // Case-insensitive lookups let the hot path test raw player names and labels without lowercasing them.
+    private static Set<String> caseInsensitive(Set<String> values) {
+        TreeSet<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(values);
+        return Collections.unmodifiableSet(set);
+    }
+}
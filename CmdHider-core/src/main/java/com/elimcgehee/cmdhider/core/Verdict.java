@@ -0,0 +1,19 @@
+package com.elimcgehee.cmdhider.core;
+
+public enum Verdict {
+    VISIBLE(false),
+    SHOWN_BY_RULE(false),
+    HIDDEN_BY_RULE(true),
+    HIDDEN_NAMESPACED(true),
+    HIDDEN_NO_PERMISSION(true);
+
+    private final boolean hidden;
+
+    Verdict(boolean hidden) {
+        this.hidden = hidden;
+    }
+
+    public boolean hidden() {
+        return hidden;
+    }
+}
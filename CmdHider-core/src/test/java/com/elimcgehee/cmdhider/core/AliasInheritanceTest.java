@@ -0,0 +1,84 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AliasInheritanceTest {
+
+    private static final RuleEngine<Object> ENGINE = new RuleEngine<>(label -> true, (subject, label) -> true);
+
+    // The exceptions section of the shipped config.yml.
+    private static RuleSet defaultConfig() {
+        return new RuleSet(true, true, Set.of("help"), Set.of(),
+                Map.of("default", Set.of()), Map.of("default", Set.of("bukkit:help")));
+    }
+
+    private static AliasGraph graph(List<List<String>> commands) {
+        Map<String, Object> owners = new HashMap<>();
+        for (List<String> labels : commands) {
+            Object command = new Object();
+            labels.forEach(label -> owners.put(label, command));
+        }
+        return AliasGraph.of(owners);
+    }
+
+    @Test
+    void classesGroupLabelsByCommandIdentity() {
+        AliasGraph aliases = graph(List.of(List.of("ban", "eban"), List.of("kick")));
+
+        assertEquals(1, aliases.classes().size());
+        assertEquals(Set.of("ban", "eban"), Set.copyOf(aliases.classes().get(0)));
+    }
+
+    @Test
+    void defaultConfigKeepsHelpAliasUsable() {
+        RuleSet rules = defaultConfig().withAliases(graph(List.of(List.of("help", "?", "bukkit:help", "bukkit:?"))));
+
+        assertEquals(ExecutionVerdict.ALLOWED, ENGINE.checkExecution(null, "?", "default", rules, true));
+        assertEquals(ExecutionVerdict.ALLOWED, ENGINE.checkExecution(null, "help", "default", rules, true));
+        assertEquals(ExecutionVerdict.BLOCKED_BY_RULE, ENGINE.checkExecution(null, "bukkit:help", "default", rules, true));
+        assertEquals(Decision.SHOW, rules.decision("?", "default"));
+    }
+
+    @Test
+    void namespacedAliasesOnlyInheritHides() {
+        RuleSet rules = defaultConfig().withAliases(graph(List.of(List.of("help", "?", "bukkit:help", "bukkit:?"))));
+
+        assertEquals(Decision.DEFER, rules.decision("bukkit:?", "default"));
+        assertEquals(Verdict.HIDDEN_NAMESPACED, ENGINE.evaluate(null, "bukkit:?", "default", rules));
+    }
+
+    @Test
+    void hideOnPlainLabelCoversWholeClass() {
+        RuleSet base = new RuleSet(true, true, Set.of(), Set.of("ban"), Map.of(), Map.of());
+        RuleSet rules = base.withAliases(graph(List.of(List.of("ban", "eban", "essentials:ban", "essentials:eban"))));
+
+        assertEquals(Decision.HIDE, rules.decision("eban", null));
+        assertEquals(Decision.HIDE, rules.decision("essentials:eban", null));
+    }
+
+    @Test
+    void inheritedDecisionsCreditTheirSourceRule() {
+        RuleSet base = new RuleSet(true, true, Set.of(), Set.of("ban"), Map.of(), Map.of());
+        RuleSet rules = base.withAliases(graph(List.of(List.of("ban", "eban"))));
+
+        rules.decision("eban", null);
+        rules.decision("eban", null);
+
+        assertEquals(2, base.rules().get(0).hits());
+    }
+
+    @Test
+    void ownRuleWinsOverInheritedOne() {
+        RuleSet base = new RuleSet(true, true, Set.of("eban"), Set.of("ban"), Map.of(), Map.of());
+        RuleSet rules = base.withAliases(graph(List.of(List.of("ban", "eban"))));
+
+        assertEquals(Decision.SHOW, rules.decision("eban", null));
+    }
+}
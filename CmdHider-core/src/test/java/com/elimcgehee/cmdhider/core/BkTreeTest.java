@@ -0,0 +1,61 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BkTreeTest {
+
+    private static BkTree tree(String... words) {
+        BkTree tree = new BkTree();
+        for (String word : words) {
+            tree.add(word);
+        }
+        return tree;
+    }
+
+    @Test
+    void distanceIsLevenshtein() {
+        assertEquals(0, BkTree.distance("home", "home", Integer.MAX_VALUE));
+        assertEquals(1, BkTree.distance("home", "hom", Integer.MAX_VALUE));
+        assertEquals(1, BkTree.distance("home", "hime", Integer.MAX_VALUE));
+        assertEquals(3, BkTree.distance("kitten", "sitting", Integer.MAX_VALUE));
+    }
+
+    @Test
+    void withinFindsOnlyCloseWords() {
+        BkTree tree = tree("home", "sethome", "homes", "warp", "spawn", "ban");
+
+        List<BkTree.Match> matches = tree.within("hom", 1);
+
+        assertEquals(List.of(new BkTree.Match("home", 1)), matches);
+    }
+
+    @Test
+    void nearestFirstThenLengthThenAlphabetical() {
+        BkTree tree = tree("bans", "bar", "ban", "bat", "tban");
+
+        List<String> words = tree.within("ban", 1).stream().map(BkTree.Match::word).toList();
+
+        assertEquals(List.of("ban", "bar", "bat", "bans", "tban"), words);
+    }
+
+    @Test
+    void duplicatesAreIgnored() {
+        BkTree tree = new BkTree();
+
+        assertTrue(tree.add("home"));
+        assertFalse(tree.add("home"));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void emptyTreeAndNegativeDistance() {
+        assertTrue(new BkTree().within("home", 2).isEmpty());
+        assertTrue(tree("home").within("home", -1).isEmpty());
+    }
+}
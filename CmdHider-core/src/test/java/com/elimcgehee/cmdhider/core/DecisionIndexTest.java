@@ -0,0 +1,84 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecisionIndexTest {
+
+    private static CompiledRule show(String pattern) {
+        return new CompiledRule(null, false, pattern);
+    }
+
+    private static CompiledRule hide(String pattern) {
+        return new CompiledRule(null, true, pattern);
+    }
+
+    @Test
+    void exactLabelsAndNamespacedForms() {
+        DecisionIndex index = DecisionIndex.compile(List.of(show("help"), hide("ban")));
+
+        assertEquals(Decision.SHOW, index.lookup("help", null));
+        assertEquals(Decision.SHOW, index.lookup("/help", null));
+        assertEquals(Decision.HIDE, index.lookup("essentials:ban", null));
+        assertEquals(Decision.DEFER, index.lookup("kick", null));
+    }
+
+    @Test
+    void namespacedEntryMergesWithBaseLabel() {
+        DecisionIndex index = DecisionIndex.compile(List.of(show("help"), hide("bukkit:help")));
+
+        assertEquals(Decision.SHOW_AND_HIDE, index.lookup("bukkit:help", null));
+        assertEquals(Decision.SHOW, index.lookup("help", null));
+    }
+
+    @Test
+    void probesCharRangeWithoutLowercasingOrSubstring() {
+        DecisionIndex index = DecisionIndex.compile(List.of(hide("ban")));
+
+        assertEquals(Decision.HIDE, index.lookup("/BAN player", 1, 4, null));
+        assertEquals(Decision.DEFER, index.lookup("/bank", 1, 5, null));
+    }
+
+    @Test
+    void patternsAndExactEntriesCombine() {
+        DecisionIndex index = DecisionIndex.compile(List.of(show("tempban"), hide("*ban*"), show("regex:^warp\\d+$")));
+
+        assertEquals(Decision.SHOW_AND_HIDE, index.lookup("tempban", null));
+        assertEquals(Decision.HIDE, index.lookup("unban", null));
+        assertEquals(Decision.SHOW, index.lookup("warp12", null));
+        assertEquals(Decision.DEFER, index.lookup("warpx", null));
+    }
+
+    @Test
+    void sinkReceivesEveryDecidingEntry() {
+        CompiledRule exact = hide("ban");
+        CompiledRule glob = hide("*ban*");
+        CompiledRule regex = show("regex:^b.n$");
+        DecisionIndex index = DecisionIndex.compile(List.of(exact, glob, regex, show("kick")));
+        List<CompiledRule> deciders = new ArrayList<>();
+
+        index.lookup("ban", deciders::add);
+
+        assertEquals(3, deciders.size());
+        assertTrue(deciders.containsAll(List.of(exact, glob, regex)));
+    }
+
+    @Test
+    void ruleSetCountsOnlyCountedLookups() {
+        RuleSet rules = new RuleSet(true, true, Set.of(), Set.of("ban"), Map.of(), Map.of());
+        CompiledRule ban = rules.rules().get(0);
+
+        rules.decision("ban", null);
+        rules.uncounted().decision("ban", null);
+        rules.mayHide("ban", 0, 3);
+
+        assertEquals(1, ban.hits());
+    }
+}
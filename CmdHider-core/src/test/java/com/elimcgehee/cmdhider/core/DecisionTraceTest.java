@@ -0,0 +1,81 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecisionTraceTest {
+
+    private static DecisionTrace enabled() {
+        DecisionTrace trace = new DecisionTrace();
+        trace.configure(new TraceOptions(true, 1, 0, Set.of(), Set.of()));
+        return trace;
+    }
+
+    @Test
+    void disabledTraceRecordsNothing() {
+        DecisionTrace trace = new DecisionTrace();
+        trace.record("send", "Steve", "ban", Verdict.HIDDEN_BY_RULE);
+
+        assertEquals(0, trace.drain(line -> { }));
+    }
+
+    @Test
+    void drainEmitsInOrder() {
+        DecisionTrace trace = enabled();
+        trace.record("send", "Steve", "ban", Verdict.HIDDEN_BY_RULE);
+        trace.record("preprocess", "Alex", "op", ExecutionVerdict.NO_PERMISSION);
+        List<String> lines = new ArrayList<>();
+
+        assertEquals(2, trace.drain(lines::add));
+        assertTrue(lines.get(0).startsWith("[send] Steve ban -> HIDDEN_BY_RULE"));
+        assertTrue(lines.get(1).startsWith("[preprocess] Alex op -> NO_PERMISSION"));
+        assertEquals(0, trace.drain(lines::add));
+    }
+
+    @Test
+    void ringWraparoundKeepsNewestAndReportsOverwritten() {
+        DecisionTrace trace = enabled();
+        int recorded = 4096 + 100;
+        for (int i = 0; i < recorded; i++) {
+            trace.record("send", "Steve", "label" + i, Verdict.HIDDEN_BY_RULE);
+        }
+        List<String> lines = new ArrayList<>();
+
+        assertEquals(4096, trace.drain(lines::add));
+        assertTrue(lines.get(0).startsWith("[send] Steve label100 "));
+        assertTrue(lines.get(4095).startsWith("[send] Steve label" + (recorded - 1) + " "));
+        assertEquals("Trace: 0 events suppressed by rate limit, 100 overwritten before drain.", lines.get(4096));
+    }
+
+    @Test
+    void drainContinuesAfterWraparound() {
+        DecisionTrace trace = enabled();
+        for (int i = 0; i < 5000; i++) {
+            trace.record("send", "Steve", "a" + i, Verdict.HIDDEN_BY_RULE);
+        }
+        trace.drain(line -> { });
+        trace.record("send", "Steve", "after", Verdict.HIDDEN_BY_RULE);
+        List<String> lines = new ArrayList<>();
+
+        assertEquals(1, trace.drain(lines::add));
+        assertTrue(lines.get(0).startsWith("[send] Steve after "));
+    }
+
+    @Test
+    void filtersAndSampling() {
+        DecisionTrace trace = new DecisionTrace();
+        trace.configure(new TraceOptions(true, 2, 0, Set.of("steve"), Set.of()));
+        for (int i = 0; i < 4; i++) {
+            trace.record("send", "Steve", "ban", Verdict.HIDDEN_BY_RULE);
+            trace.record("send", "Alex", "ban", Verdict.HIDDEN_BY_RULE);
+        }
+
+        assertEquals(2, trace.drain(line -> { }));
+    }
+}
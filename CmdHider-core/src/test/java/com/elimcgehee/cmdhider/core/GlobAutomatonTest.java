@@ -0,0 +1,75 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GlobAutomatonTest {
+
+    private static int match(GlobAutomaton automaton, String label) {
+        return automaton.match(label, 0, label.length(), null);
+    }
+
+    @Test
+    void starAndQuestionMarkWildcards() {
+        GlobAutomaton automaton = GlobAutomaton.compile(List.of("essentials:*", "mv?"),
+                List.of(GlobAutomaton.HIDE, GlobAutomaton.SHOW));
+
+        assertEquals(GlobAutomaton.HIDE, match(automaton, "essentials:home"));
+        assertEquals(GlobAutomaton.HIDE, match(automaton, "essentials:"));
+        assertEquals(GlobAutomaton.SHOW, match(automaton, "mvc"));
+        assertEquals(0, match(automaton, "mv"));
+        assertEquals(0, match(automaton, "mvcc"));
+        assertEquals(0, match(automaton, "home"));
+    }
+
+    @Test
+    void matchingIgnoresCase() {
+        GlobAutomaton automaton = GlobAutomaton.compile(List.of("*ban*"), List.of(GlobAutomaton.HIDE));
+
+        assertEquals(GlobAutomaton.HIDE, match(automaton, "TempBAN"));
+    }
+
+    @Test
+    void overlappingPatternsMergeFlagsAndReportEveryMatch() {
+        GlobAutomaton automaton = GlobAutomaton.compile(List.of("*ban*", "e*", "x*"),
+                List.of(GlobAutomaton.HIDE, GlobAutomaton.SHOW, GlobAutomaton.SHOW));
+        List<Integer> accepted = new ArrayList<>();
+
+        int flags = automaton.match("eban", 0, 4, accepted::add);
+
+        assertEquals(GlobAutomaton.HIDE | GlobAutomaton.SHOW, flags);
+        accepted.sort(null);
+        assertEquals(List.of(0, 1), accepted);
+    }
+
+    @Test
+    void matchesCharRangeOnly() {
+        GlobAutomaton automaton = GlobAutomaton.compile(List.of("ban"), List.of(GlobAutomaton.HIDE));
+
+        assertEquals(GlobAutomaton.HIDE, automaton.match("essentials:ban", 11, 14, null));
+    }
+
+    @Test
+    void bareQuestionMarkIsALabel() {
+        assertFalse(GlobAutomaton.isGlob("?"));
+        assertFalse(GlobAutomaton.isGlob("bukkit:?"));
+        assertTrue(GlobAutomaton.isGlob("mv?"));
+        assertTrue(GlobAutomaton.isGlob("??"));
+    }
+
+    @Test
+    void escapedWildcardsAreLiterals() {
+        assertFalse(GlobAutomaton.isGlob("mv\\?"));
+        assertEquals("mv?", GlobAutomaton.literal("mv\\?"));
+
+        GlobAutomaton automaton = GlobAutomaton.compile(List.of("*\\*"), List.of(GlobAutomaton.HIDE));
+        assertEquals(GlobAutomaton.HIDE, match(automaton, "a*"));
+        assertEquals(0, match(automaton, "ab"));
+    }
+}
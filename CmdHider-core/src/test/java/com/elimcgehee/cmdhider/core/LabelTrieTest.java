@@ -0,0 +1,81 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LabelTrieTest {
+
+    private static final List<String> LABELS = List.of("help", "home", "homes", "essentials:home", "ban", "h");
+
+    private static LabelTrie trie() {
+        RuleSet rules = new RuleSet(true, true, Set.of(), Set.of("ban"), Map.of(), Map.of());
+        return LabelTrie.build(LABELS, null, rules);
+    }
+
+    private static List<String> completions(LabelTrie trie, String prefix) {
+        List<String> found = new ArrayList<>();
+        trie.completions(prefix, (label, id) -> {
+            assertEquals(LABELS.get(id), label);
+            found.add(label);
+        });
+        return found;
+    }
+
+    @Test
+    void statusFollowsCompletionRules() {
+        LabelTrie trie = trie();
+
+        assertEquals(LabelTrie.Status.ALLOWED, trie.status("/home"));
+        assertEquals(LabelTrie.Status.HIDDEN, trie.status("ban"));
+        assertEquals(LabelTrie.Status.HIDDEN, trie.status("essentials:home"));
+        assertEquals(LabelTrie.Status.UNKNOWN, trie.status("hom"));
+        assertEquals(LabelTrie.Status.UNKNOWN, trie.status("kick"));
+    }
+
+    @Test
+    void prefixYieldsAllowedLabelsInOrderWithTheirIds() {
+        LabelTrie trie = trie();
+
+        assertEquals(List.of("h", "help", "home", "homes"), completions(trie, "h"));
+        assertEquals(List.of("home", "homes"), completions(trie, "/HOM"));
+        assertEquals(List.of("homes"), completions(trie, "homes"));
+    }
+
+    @Test
+    void hiddenAndMissingPrefixesYieldNothingBeyondAllowedLabels() {
+        LabelTrie trie = trie();
+
+        assertTrue(completions(trie, "ba").isEmpty());
+        assertTrue(completions(trie, "essentials:").isEmpty());
+        assertTrue(completions(trie, "kick").isEmpty());
+        assertEquals(List.of("h", "help", "home", "homes"), completions(trie, ""));
+    }
+
+    @Test
+    void servedCompletionsCreditTheirRules() {
+        RuleSet rules = new RuleSet(true, true, Set.of("essentials:home"), Set.of(), Map.of(), Map.of());
+        LabelTrie trie = LabelTrie.build(LABELS, null, rules);
+        CompiledRule show = rules.rules().get(0);
+
+        assertEquals(List.of("essentials:home"), completions(trie, "ess"));
+        assertEquals(1, show.hits());
+    }
+
+    @Test
+    void builtFromIdentity() {
+        List<String> labels = new ArrayList<>(LABELS);
+        RuleSet rules = new RuleSet(true, true, Set.of(), Set.of(), Map.of(), Map.of());
+        LabelTrie trie = LabelTrie.build(labels, null, rules);
+
+        assertTrue(trie.builtFrom(labels));
+        assertFalse(trie.builtFrom(List.copyOf(labels)));
+    }
+}
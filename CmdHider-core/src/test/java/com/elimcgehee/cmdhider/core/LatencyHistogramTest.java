@@ -0,0 +1,69 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.meanNanos());
+        assertEquals(0, snapshot.percentileNanos(99.0));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(10, snapshot.count());
+        assertEquals(5, snapshot.percentileNanos(50.0));
+        assertEquals(10, snapshot.percentileNanos(100.0));
+        assertEquals(10, snapshot.maxNanos());
+        assertEquals(5, snapshot.meanNanos());
+    }
+
+    @Test
+    void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        long p50 = snapshot.percentileNanos(50.0);
+        long p99 = snapshot.percentileNanos(99.0);
+        // Upper bounds never under-report, and 16 sub-buckets keep them within about 6%.
+        assertTrue(p50 >= 50_000_000L && p50 <= 50_000_000L * 107 / 100, "p50 " + p50);
+        assertTrue(p99 >= 99_000_000L && p99 <= 99_000_000L * 107 / 100, "p99 " + p99);
+        assertEquals(100_000_000L, snapshot.percentileNanos(100.0));
+    }
+
+    @Test
+    void percentileNeverExceedsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001L);
+
+        assertEquals(1_000_001L, histogram.snapshot().percentileNanos(50.0));
+    }
+
+    @Test
+    void negativeValuesClampToZeroAndResetClears() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        assertEquals(0, histogram.snapshot().maxNanos());
+        assertEquals(1, histogram.snapshot().count());
+
+        histogram.reset();
+
+        assertEquals(0, histogram.snapshot().count());
+    }
+}
@@ -0,0 +1,74 @@
+package com.elimcgehee.cmdhider.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatternRulesTest {
+
+    private static CompiledRule show(String pattern) {
+        return new CompiledRule(null, false, pattern);
+    }
+
+    private static Decision match(PatternRules rules, String label) {
+        return rules.match(label, 0, label.length(), null);
+    }
+
+    @Test
+    void backreferenceKeepsItsOwnGroupNumbers() {
+        PatternRules rules = PatternRules.compile(List.of(show("regex:^(x)+y$"), show("regex:^(.)\\1$")));
+
+        assertEquals(Decision.SHOW, match(rules, "xxy"));
+        assertEquals(Decision.SHOW, match(rules, "bb"));
+        assertEquals(Decision.DEFER, match(rules, "bc"));
+        assertEquals(Decision.DEFER, match(rules, "bx"));
+    }
+
+    @Test
+    void duplicateGroupNamesAcrossEntriesStillCompile() {
+        PatternRules rules = PatternRules.compile(List.of(show("regex:^(?<w>warp)\\d+$"), show("regex:^(?<w>home)s?$")));
+
+        assertEquals(Decision.SHOW, match(rules, "warp12"));
+        assertEquals(Decision.SHOW, match(rules, "homes"));
+        assertEquals(Decision.DEFER, match(rules, "spawn"));
+    }
+
+    @Test
+    void entriesOnlyValidAloneFallBackToSeparateMatching() {
+        PatternRules rules = PatternRules.compile(List.of(show("regex:(?x)^spawn$ # comment"), show("regex:^hub$")));
+
+        assertEquals(Decision.SHOW, match(rules, "spawn"));
+        assertEquals(Decision.SHOW, match(rules, "hub"));
+    }
+
+    @Test
+    void sinkNamesTheSeparatelyMatchedEntry() {
+        CompiledRule plain = show("regex:^a+$");
+        CompiledRule backreference = show("regex:^(.)\\1$");
+        PatternRules rules = PatternRules.compile(List.of(plain, backreference));
+        List<CompiledRule> deciders = new ArrayList<>();
+
+        rules.match("zz", 0, 2, deciders::add);
+
+        assertEquals(List.of(backreference), deciders);
+    }
+
+    @Test
+    void mergeableSkipsEscapesAndLookbehinds() {
+        assertTrue(PatternRules.mergeable("^a\\\\1(?<=a)(?<!b)\\d$"));
+        assertFalse(PatternRules.mergeable("^(?<name>a)$"));
+        assertFalse(PatternRules.mergeable("^(a)\\k<x>$"));
+        assertFalse(PatternRules.mergeable("^(a)\\2$"));
+    }
+
+    @Test
+    void invalidEntryIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PatternRules.compile(List.of(show("regex:^(a$"))));
+    }
+}
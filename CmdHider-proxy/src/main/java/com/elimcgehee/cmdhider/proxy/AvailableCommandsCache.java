@@ -0,0 +1,72 @@
+package com.elimcgehee.cmdhider.proxy;
+
+import com.elimcgehee.cmdhider.core.Bitsets;
+import com.elimcgehee.cmdhider.core.LabelIds;
+import com.elimcgehee.cmdhider.core.RuleHits;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Root node names to prune, memoized per (primary group, backend server, permission fingerprint).
+// Players sharing a key see the same requirement outcomes, so a hit skips every predicate and rule lookup.
+public class AvailableCommandsCache {
+
+    // One key per distinct permission set; clear rather than grow without bound when many distinct users pass through.
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so results computed against stale state are never stored.
+    private final AtomicLong generation = new AtomicLong();
+    // Node names seen since the last invalidation; entries store bitsets over these IDs.
+    private volatile LabelIds labelIds = new LabelIds();
+
+    public Entry get(Key key) {
+        return entries.get(key);
+    }
+
+    public LabelIds labelIds() {
+        return labelIds;
+    }
+
+    public long stamp() {
+        return generation.get();
+    }
+
+    public void put(Key key, Entry entry, long stamp) {
+        if (generation.get() != stamp) {
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(key, entry);
+        // An invalidation may have raced the put; drop the entry rather than serve it.
+        if (generation.get() != stamp) {
+            entries.remove(key, entry);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        labelIds = new LabelIds();
+    }
+
+    public record Key(String group, String server, Object permissions) {
+    }
+
+    // hits replays the rule hits of the pass that built the entry each time it is served.
+    public record Entry(LabelIds ids, long[] evaluated, long[] hidden, RuleHits hits) {
+
+        public boolean evaluated(String name) {
+            int id = ids.find(name);
+            return id >= 0 && Bitsets.get(evaluated, id);
+        }
+
+        public boolean hides(String name) {
+            int id = ids.find(name);
+            return id >= 0 && Bitsets.get(hidden, id);
+        }
+    }
+}
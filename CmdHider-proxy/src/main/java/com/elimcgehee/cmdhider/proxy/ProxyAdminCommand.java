@@ -0,0 +1,62 @@
+package com.elimcgehee.cmdhider.proxy;
+
+import com.elimcgehee.cmdhider.core.FilterMetrics;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import net.kyori.adventure.text.Component;
+
+import java.util.List;
+
+public class ProxyAdminCommand implements SimpleCommand {
+
+    private final ProxyCmdHiderPlugin plugin;
+    private final FilterMetrics metrics;
+
+    public ProxyAdminCommand(ProxyCmdHiderPlugin plugin, FilterMetrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        CommandSource source = invocation.source();
+        String[] args = invocation.arguments();
+        if (args.length == 0 || !("reload".equalsIgnoreCase(args[0]) || "stats".equalsIgnoreCase(args[0])
+                || "rules".equalsIgnoreCase(args[0]))) {
+            source.sendMessage(Component.text("Usage: /cmdhiderproxy <reload|stats [reset]|rules>"));
+            return;
+        }
+        if ("rules".equalsIgnoreCase(args[0])) {
+            plugin.getRuleStats().report().report(10).forEach(line -> source.sendMessage(Component.text(line)));
+            return;
+        }
+        if ("reload".equalsIgnoreCase(args[0])) {
+            source.sendMessage(Component.text("Reloading CmdHider configuration..."));
+            plugin.reloadAsync(message -> source.sendMessage(Component.text(message)));
+            return;
+        }
+        if (args.length > 1 && "reset".equalsIgnoreCase(args[1])) {
+            metrics.reset();
+            source.sendMessage(Component.text("CmdHider stats reset."));
+            return;
+        }
+        metrics.report().forEach(line -> source.sendMessage(Component.text(line)));
+    }
+
+    @Override
+    public List<String> suggest(Invocation invocation) {
+        String[] args = invocation.arguments();
+        if (args.length <= 1) {
+            return List.of("reload", "stats", "rules");
+        }
+        if (args.length == 2 && "stats".equalsIgnoreCase(args[0])) {
+            return List.of("reset");
+        }
+        return List.of();
+    }
+
+    @Override
+    public boolean hasPermission(Invocation invocation) {
+        return invocation.source().hasPermission("cmdhider.admin");
+    }
+}
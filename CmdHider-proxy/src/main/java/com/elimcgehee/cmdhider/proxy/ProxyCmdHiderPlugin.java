@@ -1,21 +1,35 @@
 package com.elimcgehee.cmdhider.proxy;
 
+import com.elimcgehee.cmdhider.core.ConfigWatcher;
+import com.elimcgehee.cmdhider.core.DecisionTrace;
+import com.elimcgehee.cmdhider.core.FilterMetrics;
+import com.elimcgehee.cmdhider.core.RuleStats;
 import com.google.inject.Inject;
 import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Dependency;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
 
 @Plugin(id = "cmdhider", name = "CmdHider", version = "1.0.0", authors = {"Eli"},
         dependencies = { @Dependency(id = "luckperms", optional = false) })
@@ -24,9 +38,17 @@ public class ProxyCmdHiderPlugin {
     private final ProxyServer server;
     private final Logger logger;
     private final Path dataDirectory;
-    private ProxyHiderSettings settings;
+    private volatile ProxyHiderSettings settings;
     private ProxyPermissionChecker permissionChecker;
     private LuckPerms luckPerms;
+    private final FilterMetrics metrics = new FilterMetrics();
+    private final DecisionTrace trace = new DecisionTrace();
+    private final AvailableCommandsCache availableCommandsCache = new AvailableCommandsCache();
+    private final ProxyCommandIndex commandIndex = new ProxyCommandIndex();
+    private final AtomicLong reloadSequence = new AtomicLong();
+    private ProxyCommandRefresher commandRefresher;
+    private ConfigWatcher configWatcher;
+    private RuleStats ruleStats;
 
     @Inject
     public ProxyCmdHiderPlugin(ProxyServer server, Logger logger, @DataDirectory Path dataDirectory) {
@@ -41,24 +63,132 @@ public class ProxyCmdHiderPlugin {
         hookLuckPerms();
         reloadSettings();
         this.permissionChecker = new ProxyPermissionChecker(luckPerms);
+        this.commandRefresher = new ProxyCommandRefresher(this, server);
+        server.getChannelRegistrar().register(ProxyCommandRefresher.CHANNEL);
 
-        server.getEventManager().register(this, new ProxyCommandFilter(this, server, permissionChecker, logger));
+        server.getEventManager().register(this, new ProxyCommandFilter(this, server, permissionChecker,
+                commandIndex, availableCommandsCache, metrics, trace));
+        server.getCommandManager().register(
+                server.getCommandManager().metaBuilder("cmdhiderproxy").plugin(this).build(),
+                new ProxyAdminCommand(this, metrics)
+        );
+        // Trace events are formatted and logged here, once a second, never on the thread that recorded them.
+        server.getScheduler().buildTask(this, () -> trace.drain(logger::info))
+                .repeat(1, TimeUnit.SECONDS)
+                .schedule();
+
+        // Velocity has no command registration event, so poll the alias set and rebuild the index when it changes.
+        server.getScheduler().buildTask(this, this::pollCommandAliases)
+                .repeat(1, TimeUnit.SECONDS)
+                .schedule();
+        subscribeLuckPermsEvents();
+        startConfigWatcher();
+        registerRuleStats();
 
         logger.info("CmdHider Proxy enabled.");
     }
 
+    @Subscribe
+    public void onShutdown(ProxyShutdownEvent event) {
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (ruleStats != null) {
+            ruleStats.unregister();
+        }
+    }
+
+    @Subscribe
+    public void onDisconnect(DisconnectEvent event) {
+        if (permissionChecker != null) {
+            permissionChecker.forget(event.getPlayer().getUniqueId());
+        }
+    }
+
+    // The refresh channel is proxy-to-backend only; never forward a client's message on it.
+    @Subscribe
+    public void onPluginMessage(PluginMessageEvent event) {
+        if (ProxyCommandRefresher.CHANNEL.equals(event.getIdentifier())) {
+            event.setResult(PluginMessageEvent.ForwardResult.handled());
+        }
+    }
+
     public ProxyHiderSettings getSettings() {
         return settings;
     }
 
+    public RuleStats getRuleStats() {
+        return ruleStats;
+    }
+
+    private void registerRuleStats() {
+        try {
+            ruleStats = new RuleStats("velocity", () -> {
+                ProxyHiderSettings current = settings;
+                return current == null ? List.of() : current.allRules();
+            });
+            ruleStats.register();
+        } catch (JMException ex) {
+            logger.log(Level.WARNING, "Could not register the RuleStats MBean; /cmdhiderproxy rules still works.", ex);
+        }
+    }
+
     public void reloadSettings() {
         try {
             this.settings = ProxyHiderSettings.load(dataDirectory.resolve("config.toml"), logger);
+            trace.configure(settings.traceOptions());
         } catch (Exception ex) {
             logger.log(Level.SEVERE, "Failed to load config.toml", ex);
         }
     }
 
+    // Parses and compiles on a scheduler thread; the event threads only ever see a complete snapshot.
+    public void reloadAsync(Consumer<String> feedback) {
+        long sequence = reloadSequence.incrementAndGet();
+        server.getScheduler().buildTask(this, () -> {
+            ProxyHiderSettings loaded;
+            try {
+                loaded = ProxyHiderSettings.load(dataDirectory.resolve("config.toml"), logger);
+            } catch (Exception ex) {
+                logger.log(Level.SEVERE, "Failed to load config.toml; keeping previous settings.", ex);
+                feedback.accept("CmdHider reload failed; see console.");
+                return;
+            }
+            synchronized (this) {
+                // A newer reload started while this one was parsing; let that one win.
+                if (sequence != reloadSequence.get()) {
+                    return;
+                }
+                this.settings = loaded;
+                trace.configure(loaded.traceOptions());
+                availableCommandsCache.invalidateAll();
+            }
+            commandRefresher.refreshAll();
+            feedback.accept("CmdHider configuration reloaded.");
+        }).schedule();
+    }
+
+    private void startConfigWatcher() {
+        ProxyHiderSettings current = settings;
+        if (current == null || !current.autoReload()) {
+            return;
+        }
+        configWatcher = new ConfigWatcher(dataDirectory.resolve("config.toml"), current.autoReloadDebounceMillis(),
+                () -> reloadAsync(logger::info), logger);
+        try {
+            configWatcher.start();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Could not watch config.toml; use /cmdhiderproxy reload instead.", ex);
+            configWatcher = null;
+        }
+    }
+
+    private void pollCommandAliases() {
+        if (commandIndex.update(server.getCommandManager().getAliases())) {
+            availableCommandsCache.invalidateAll();
+        }
+    }
+
     public net.kyori.adventure.text.Component format(String message) {
         return net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer.legacyAmpersand().deserialize(message);
     }
@@ -87,4 +217,16 @@ public class ProxyCmdHiderPlugin {
             logger.log(Level.SEVERE, "LuckPerms not found; permission checks may be inaccurate.", ex);
         }
     }
+
+    // User permission changes already produce a new fingerprint; group edits can also change which group
+    // names and maps are live, so start over rather than keep unreachable entries around.
+    private void subscribeLuckPermsEvents() {
+        if (luckPerms == null) {
+            return;
+        }
+        luckPerms.getEventBus().subscribe(this, UserDataRecalculateEvent.class,
+                event -> permissionChecker.forget(event.getUser().getUniqueId()));
+        luckPerms.getEventBus().subscribe(this, GroupDataRecalculateEvent.class,
+                event -> availableCommandsCache.invalidateAll());
+    }
 }
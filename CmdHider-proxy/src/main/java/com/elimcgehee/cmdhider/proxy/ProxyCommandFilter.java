@@ -1,5 +1,17 @@
 package com.elimcgehee.cmdhider.proxy;
 
+import com.elimcgehee.cmdhider.core.Bitsets;
+import com.elimcgehee.cmdhider.core.CommandBlockedFlightEvent;
+import com.elimcgehee.cmdhider.core.CommandSendFlightEvent;
+import com.elimcgehee.cmdhider.core.DecisionTrace;
+import com.elimcgehee.cmdhider.core.ExecutionVerdict;
+import com.elimcgehee.cmdhider.core.FilterMetrics;
+import com.elimcgehee.cmdhider.core.LabelIds;
+import com.elimcgehee.cmdhider.core.Labels;
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.RuleHits;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import com.elimcgehee.cmdhider.core.Verdict;
 import com.mojang.brigadier.tree.CommandNode;
 import com.mojang.brigadier.tree.RootCommandNode;
 import com.velocitypowered.api.command.CommandSource;
@@ -11,25 +23,44 @@ import com.velocitypowered.api.event.command.PlayerAvailableCommandsEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.function.Predicate;
-import java.util.logging.Logger;
 
 public class ProxyCommandFilter {
 
     private final ProxyCmdHiderPlugin plugin;
     private final ProxyServer server;
     private final ProxyPermissionChecker permissionChecker;
-    private final Logger logger;
+    private final ProxyCommandIndex commandIndex;
+    private final AvailableCommandsCache availableCommandsCache;
+    private final RuleEngine<Player> ruleEngine;
+    private final FilterMetrics.Handler availableCommandsMetrics;
+    private final FilterMetrics.Handler commandExecuteMetrics;
+    private final DecisionTrace trace;
 
     public ProxyCommandFilter(ProxyCmdHiderPlugin plugin,
                               ProxyServer server,
                               ProxyPermissionChecker permissionChecker,
-                              Logger logger) {
+                              ProxyCommandIndex commandIndex,
+                              AvailableCommandsCache availableCommandsCache,
+                              FilterMetrics metrics,
+                              DecisionTrace trace) {
         this.plugin = plugin;
         this.server = server;
         this.permissionChecker = permissionChecker;
-        this.logger = logger;
+        this.commandIndex = commandIndex;
+        this.availableCommandsCache = availableCommandsCache;
+        // Use Velocity's command manager permission predicate to respect LuckPerms requirements.
+        this.ruleEngine = new RuleEngine<>(
+                commandIndex::contains,
+                (player, label) -> server.getCommandManager().hasCommand(label, player)
+        );
+        this.availableCommandsMetrics = metrics.handler("onAvailableCommands");
+        this.commandExecuteMetrics = metrics.handler("onCommandExecute");
+        this.trace = trace;
     }
 
     @Subscribe
@@ -38,11 +69,62 @@ public class ProxyCommandFilter {
         if (settings == null) {
             return;
         }
+        long start = System.nanoTime();
+        CommandSendFlightEvent flight = new CommandSendFlightEvent();
+        flight.begin();
         Player player = event.getPlayer();
-        String group = permissionChecker.getPrimaryGroup(player);
+        ProxyPermissionChecker.Resolved resolved = permissionChecker.resolve(player);
+        String group = resolved.group();
+        String server = currentServer(player);
+        RuleSet rules = settings.rules(server);
+
+        AvailableCommandsCache.Key key = new AvailableCommandsCache.Key(group, server, resolved.fingerprint());
 
         RootCommandNode<?> root = event.getRootNode();
-        root.getChildren().removeIf(node -> shouldHideNode(player, node, settings, group));
+        Collection<? extends CommandNode<?>> children = root.getChildren();
+        int before = children.size();
+        List<String> sent = flight.isEnabled() ? names(children) : null;
+        AvailableCommandsCache.Entry cached = availableCommandsCache.get(key);
+        if (cached != null && covers(cached, children)) {
+            children.removeIf(node -> cached.hides(node.getName()));
+            cached.hits().credit();
+        } else {
+            long stamp = availableCommandsCache.stamp();
+            LabelIds ids = availableCommandsCache.labelIds();
+            int[] nodeIds = new int[children.size()];
+            int count = 0;
+            int maxId = -1;
+            for (CommandNode<?> node : children) {
+                nodeIds[count] = ids.id(node.getName());
+                maxId = Math.max(maxId, nodeIds[count++]);
+            }
+            long[] evaluated = Bitsets.allocate(maxId + 1);
+            long[] hidden = Bitsets.allocate(maxId + 1);
+            // Tallied rather than counted directly, so cache hits can replay the same hits later.
+            RuleHits.Tally tally = new RuleHits.Tally();
+            RuleSet tallied = rules.reportingTo(tally);
+            int[] position = {0};
+            children.removeIf(node -> {
+                int id = nodeIds[position[0]++];
+                Bitsets.set(evaluated, id);
+                if (shouldHideNode(player, node, tallied, group)) {
+                    Bitsets.set(hidden, id);
+                    return true;
+                }
+                return false;
+            });
+            RuleHits hits = tally.build();
+            hits.credit();
+            availableCommandsCache.put(key, new AvailableCommandsCache.Entry(ids, evaluated, hidden, hits), stamp);
+        }
+        int after = children.size();
+        availableCommandsMetrics.hidden(before - after);
+        availableCommandsMetrics.passed(after);
+        availableCommandsMetrics.recordSince(start);
+        flight.end();
+        if (sent != null && flight.shouldCommit()) {
+            flight.emit("onAvailableCommands", player.getUsername(), group, sent, names(children), rules);
+        }
     }
 
     @Subscribe(order = PostOrder.FIRST)
@@ -54,76 +136,90 @@ public class ProxyCommandFilter {
         if (!(event.getCommandSource() instanceof Player player)) {
             return;
         }
+        long start = System.nanoTime();
+        CommandBlockedFlightEvent flight = new CommandBlockedFlightEvent();
+        flight.begin();
+        try {
+            filterExecute(event, player, settings, flight);
+        } finally {
+            commandExecuteMetrics.recordSince(start);
+        }
+    }
 
+    private void filterExecute(CommandExecuteEvent event, Player player, ProxyHiderSettings settings,
+                               CommandBlockedFlightEvent flight) {
         String raw = event.getCommand();
-        if (raw == null || raw.isEmpty()) {
+        if (raw == null) {
+            return;
+        }
+        int from = Labels.labelStart(raw);
+        int to = Labels.labelEnd(raw, from);
+        if (from == to) {
             return;
         }
 
-        String trimmed = raw.startsWith("/") ? raw.substring(1) : raw;
-        String[] parts = trimmed.split(" ");
-        if (parts.length == 0) {
+        // Most commands belong to a backend and no rule names them; they leave here without allocating.
+        if (!commandIndex.contains(raw, from, to) && !settings.mayHide(raw, from, to)) {
+            commandExecuteMetrics.passed(1);
             return;
         }
 
-        String label = parts[0].toLowerCase(Locale.ROOT);
+        String label = raw.substring(from, to).toLowerCase(Locale.ROOT);
         String group = permissionChecker.getPrimaryGroup(player);
 
-        if (settings.isAlwaysHide(label, group)) {
+        boolean checkPermission = settings.filterByPermission() || settings.replaceNoPermission();
+        RuleSet rules = settings.rules(currentServer(player));
+        ExecutionVerdict verdict = ruleEngine.checkExecution(player, label, group, rules, checkPermission);
+        // Unknown here means not a Velocity command; let the backend server handle permissions/unknown command replies.
+        if (verdict == ExecutionVerdict.BLOCKED_BY_RULE || verdict == ExecutionVerdict.NO_PERMISSION) {
+            trace.record("execute", player.getUsername(), label, verdict);
             if (settings.replaceNoPermission() && settings.hasNoPermissionMessage()) {
                 player.sendMessage(plugin.format(settings.noPermissionMessage()));
             }
             event.setResult(CommandResult.denied());
-            return;
-        }
-
-        boolean proxyCommand = server.getCommandManager().hasCommand(label);
-        if (!proxyCommand) {
-            // Not a Velocity command; let the backend server handle permissions/unknown command replies.
-            return;
-        }
-
-        if (settings.filterByPermission() || settings.replaceNoPermission()) {
-            if (!canUseCommand(player, label, settings, group)) {
-                if (settings.replaceNoPermission() && settings.hasNoPermissionMessage()) {
-                    player.sendMessage(plugin.format(settings.noPermissionMessage()));
-                }
-                event.setResult(CommandResult.denied());
+            commandExecuteMetrics.blocked();
+            flight.end();
+            if (flight.shouldCommit()) {
+                flight.emit("onCommandExecute", player.getUsername(), group, label,
+                        rules.decidingRules(List.of(label), group), verdict.name());
             }
+        } else {
+            commandExecuteMetrics.passed(1);
         }
     }
 
-    private boolean canUseCommand(Player player, String commandLabel, ProxyHiderSettings settings, String group) {
-        if (settings.isAlwaysShow(commandLabel, group)) {
-            return true;
+    private boolean shouldHideNode(Player player, CommandNode<?> node, RuleSet rules, String group) {
+        String name = node.getName().toLowerCase(Locale.ROOT);
+        Predicate<CommandSource> requirement = castPredicate(node.getRequirement());
+        Verdict verdict = ruleEngine.evaluate(player, name, group, rules,
+                (source, label) -> requirement == null || requirement.test(source));
+        if (verdict.hidden()) {
+            trace.record("available", player.getUsername(), name, verdict);
         }
-        if (settings.isAlwaysHide(commandLabel, group)) {
-            return false;
+        return verdict.hidden();
+    }
+
+    // Lower-cased like the labels the rules are evaluated against.
+    private static List<String> names(Collection<? extends CommandNode<?>> children) {
+        List<String> names = new ArrayList<>(children.size());
+        for (CommandNode<?> node : children) {
+            names.add(node.getName().toLowerCase(Locale.ROOT));
         }
+        return names;
+    }
 
-        // Use Velocity's command manager permission predicate to respect LuckPerms requirements.
-        return server.getCommandManager().hasCommand(commandLabel, player);
+    private String currentServer(Player player) {
+        return player.getCurrentServer().map(connection -> connection.getServerInfo().getName()).orElse("");
     }
 
-    private boolean shouldHideNode(Player player, CommandNode<?> node, ProxyHiderSettings settings, String group) {
-        String name = node.getName().toLowerCase(Locale.ROOT);
-        if (settings.isAlwaysShow(name, group)) {
-            return false;
-        }
-        if (settings.isAlwaysHide(name, group)) {
-            logIfDebug(settings, "Hiding " + name + " because it is in always-hide.");
-            return true;
-        }
-        if (settings.hideNamespaced() && name.contains(":")) {
-            logIfDebug(settings, "Hiding " + name + " because it is namespaced.");
-            return true;
-        }
-        Predicate<CommandSource> requirement = castPredicate(node.getRequirement());
-        if (settings.filterByPermission() && requirement != null && !requirement.test(player)) {
-            logIfDebug(settings, "Hiding " + name + " because player lacks permission predicate.");
-            return true;
+    // The backend may have added commands since the entry was built; those need a full evaluation.
+    private boolean covers(AvailableCommandsCache.Entry entry, Collection<? extends CommandNode<?>> children) {
+        for (CommandNode<?> node : children) {
+            if (!entry.evaluated(node.getName())) {
+                return false;
+            }
         }
-        return false;
+        return true;
     }
 
     @SuppressWarnings("unchecked")
@@ -134,10 +230,4 @@ public class ProxyCommandFilter {
             return null;
         }
     }
-
-    private void logIfDebug(ProxyHiderSettings settings, String message) {
-        if (settings.debug()) {
-            logger.info(message);
-        }
-    }
 }
@@ -0,0 +1,33 @@
+package com.elimcgehee.cmdhider.proxy;
+
+import com.elimcgehee.cmdhider.core.LabelSet;
+
+import java.util.Collection;
+import java.util.Set;
+
+// Snapshot of the aliases registered with Velocity's command manager. Velocity fires no registration events,
+// so the plugin re-reads the alias set on a timer and swaps in a new snapshot only when it changed.
+public class ProxyCommandIndex {
+
+    private volatile Set<String> aliases = Set.of();
+    private volatile LabelSet index = LabelSet.EMPTY;
+
+    // Returns true when the alias set differs from the previous snapshot.
+    public boolean update(Collection<String> current) {
+        Set<String> snapshot = Set.copyOf(current);
+        if (snapshot.equals(aliases)) {
+            return false;
+        }
+        index = LabelSet.of(snapshot);
+        aliases = snapshot;
+        return true;
+    }
+
+    public boolean contains(String label) {
+        return index.contains(label);
+    }
+
+    public boolean contains(CharSequence line, int from, int to) {
+        return index.contains(line, from, to);
+    }
+}
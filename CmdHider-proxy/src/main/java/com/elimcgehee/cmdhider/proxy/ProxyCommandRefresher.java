@@ -0,0 +1,68 @@
+package com.elimcgehee.cmdhider.proxy;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Velocity can't re-send a command tree on its own, so after a reload each player's backend is asked to do it
+// over the refresh channel (the Paper plugin answers with Player#updateCommands), a batch every 50ms.
+public class ProxyCommandRefresher {
+
+    public static final MinecraftChannelIdentifier CHANNEL = MinecraftChannelIdentifier.create("cmdhider", "refresh");
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ProxyCmdHiderPlugin plugin;
+    private final ProxyServer server;
+    private final Set<UUID> pending = new LinkedHashSet<>();
+    private ScheduledTask task;
+
+    public ProxyCommandRefresher(ProxyCmdHiderPlugin plugin, ProxyServer server) {
+        this.plugin = plugin;
+        this.server = server;
+    }
+
+    public synchronized void refreshAll() {
+        for (Player player : server.getAllPlayers()) {
+            pending.add(player.getUniqueId());
+        }
+        if (task == null && !pending.isEmpty()) {
+            task = server.getScheduler().buildTask(plugin, this::tick)
+                    .repeat(50, TimeUnit.MILLISECONDS)
+                    .schedule();
+        }
+    }
+
+    public synchronized void cancel() {
+        pending.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private synchronized void tick() {
+        ProxyHiderSettings settings = plugin.getSettings();
+        int budget = settings == null ? 1 : settings.updateCommandsPerTick();
+        Iterator<UUID> it = pending.iterator();
+        while (budget > 0 && it.hasNext()) {
+            Optional<Player> player = server.getPlayer(it.next());
+            it.remove();
+            // Players that left or are between servers are simply skipped.
+            if (player.isPresent() && player.get().getCurrentServer().isPresent()) {
+                player.get().getCurrentServer().get().sendPluginMessage(CHANNEL, EMPTY);
+                budget--;
+            }
+        }
+        if (pending.isEmpty()) {
+            cancel();
+        }
+    }
+}
@@ -2,11 +2,17 @@ package com.elimcgehee.cmdhider.proxy;
 
 import com.electronwill.nightconfig.core.Config;
 import com.electronwill.nightconfig.core.file.CommentedFileConfig;
+import com.elimcgehee.cmdhider.core.Decision;
+import com.elimcgehee.cmdhider.core.Labels;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import com.elimcgehee.cmdhider.core.TraceOptions;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -26,6 +32,12 @@ public class ProxyHiderSettings {
     private final Map<String, Set<String>> groupAlwaysHide;
     private final String unknownCommandMessage;
     private final String noPermissionMessage;
+    private final TraceOptions traceOptions;
+    private final boolean autoReload;
+    private final long autoReloadDebounceMillis;
+    private final int updateCommandsPerTick;
+    private final RuleSet rules;
+    private final Map<String, RuleSet> serverRules;
 
     public ProxyHiderSettings(boolean hideNamespaced,
                               boolean hideSubcommandSuggestions,
@@ -38,7 +50,12 @@ public class ProxyHiderSettings {
                               Map<String, Set<String>> groupAlwaysShow,
                               Map<String, Set<String>> groupAlwaysHide,
                               String unknownCommandMessage,
-                              String noPermissionMessage) {
+                              String noPermissionMessage,
+                              TraceOptions traceOptions,
+                              boolean autoReload,
+                              long autoReloadDebounceMillis,
+                              int updateCommandsPerTick,
+                              Map<String, ServerExceptions> serverExceptions) {
         this.hideNamespaced = hideNamespaced;
         this.hideSubcommandSuggestions = hideSubcommandSuggestions;
         this.filterByPermission = filterByPermission;
@@ -51,11 +68,32 @@ public class ProxyHiderSettings {
         this.groupAlwaysHide = groupAlwaysHide;
         this.unknownCommandMessage = unknownCommandMessage;
         this.noPermissionMessage = noPermissionMessage;
+        this.traceOptions = traceOptions;
+        this.autoReload = autoReload;
+        this.autoReloadDebounceMillis = autoReloadDebounceMillis;
+        this.updateCommandsPerTick = Math.max(1, updateCommandsPerTick);
+        this.rules = new RuleSet(hideNamespaced, filterByPermission, alwaysShow, alwaysHide, groupAlwaysShow, groupAlwaysHide);
+        // Server sections extend the global lists; each backend gets its own compiled RuleSet.
+        Map<String, RuleSet> perServer = new HashMap<>();
+        serverExceptions.forEach((server, exceptions) -> perServer.put(server, new RuleSet(
+                hideNamespaced,
+                filterByPermission,
+                union(alwaysShow, exceptions.alwaysShow()),
+                union(alwaysHide, exceptions.alwaysHide()),
+                union(groupAlwaysShow, exceptions.groupAlwaysShow()),
+                union(groupAlwaysHide, exceptions.groupAlwaysHide()))));
+        this.serverRules = Collections.unmodifiableMap(perServer);
     }
 
     public static ProxyHiderSettings load(Path path, Logger logger) {
-        CommentedFileConfig config = CommentedFileConfig.builder(path).autosave().build();
-        config.load();
+        // Read-only: the file is never written back, so a reload can't clobber an edit in progress.
+        try (CommentedFileConfig config = CommentedFileConfig.builder(path).build()) {
+            config.load();
+            return fromConfig(config);
+        }
+    }
+
+    private static ProxyHiderSettings fromConfig(Config config) {
 
         boolean hideNamespaced = config.getOrElse("options.hide-namespaced", true);
         boolean hideSubcommandSuggestions = config.getOrElse("options.hide-subcommand-suggestions", true);
@@ -63,14 +101,26 @@ public class ProxyHiderSettings {
         boolean replaceUnknownCommand = config.getOrElse("options.replace-unknown-command", true);
         boolean replaceNoPermission = config.getOrElse("options.replace-no-permission", true);
         boolean debug = config.getOrElse("options.debug", false);
+        boolean autoReload = config.getOrElse("options.auto-reload", false);
+        long autoReloadDebounceMillis = config.getLongOrElse("options.auto-reload-debounce-ms", 500L);
+        int updateCommandsPerTick = config.getIntOrElse("options.update-commands-per-tick", 20);
 
-        Set<String> alwaysShow = toLowerSet(config.getOrElse("exceptions.always-show", Collections.emptyList()));
-        Set<String> alwaysHide = toLowerSet(config.getOrElse("exceptions.always-hide", Collections.emptyList()));
+        Set<String> alwaysShow = Labels.toLowerSet(config.getOrElse("exceptions.always-show", Collections.emptyList()));
+        Set<String> alwaysHide = Labels.toLowerSet(config.getOrElse("exceptions.always-hide", Collections.emptyList()));
         Map<String, Set<String>> groupAlwaysShow = readGroupLists(config, "exceptions.per-group", "always-show");
         Map<String, Set<String>> groupAlwaysHide = readGroupLists(config, "exceptions.per-group", "always-hide");
 
+        Map<String, ServerExceptions> serverExceptions = readServerExceptions(config);
+
         String unknown = sanitizeMessage(config.getOrElse("messages.unknown-command", "This command does not exist."));
         String noPerm = sanitizeMessage(config.getOrElse("messages.no-permission", "You don't have permission."));
+        TraceOptions trace = new TraceOptions(
+                debug,
+                config.getIntOrElse("options.trace.sample-every", 1),
+                config.getIntOrElse("options.trace.max-per-second", 200),
+                Set.copyOf(config.<List<String>>getOrElse("options.trace.players", Collections.emptyList())),
+                Set.copyOf(config.<List<String>>getOrElse("options.trace.labels", Collections.emptyList()))
+        );
 
         return new ProxyHiderSettings(
                 hideNamespaced,
@@ -84,22 +134,15 @@ public class ProxyHiderSettings {
                 groupAlwaysShow,
                 groupAlwaysHide,
                 unknown,
-                noPerm
+                noPerm,
+                trace,
+                autoReload,
+                autoReloadDebounceMillis,
+                updateCommandsPerTick,
+                serverExceptions
         );
     }
 
-    private static Set<String> toLowerSet(Iterable<String> raw) {
-        Set<String> set = new HashSet<>();
-        for (String value : raw) {
-            String normalized = value == null ? "" : value;
-            if (normalized.startsWith("/")) {
-                normalized = normalized.substring(1);
-            }
-            set.add(normalized.toLowerCase(Locale.ROOT));
-        }
-        return Collections.unmodifiableSet(set);
-    }
-
     public boolean hideNamespaced() {
         return hideNamespaced;
     }
@@ -124,6 +167,22 @@ public class ProxyHiderSettings {
         return debug;
     }
 
+    public TraceOptions traceOptions() {
+        return traceOptions;
+    }
+
+    public boolean autoReload() {
+        return autoReload;
+    }
+
+    public long autoReloadDebounceMillis() {
+        return autoReloadDebounceMillis;
+    }
+
+    public int updateCommandsPerTick() {
+        return updateCommandsPerTick;
+    }
+
     public String unknownCommandMessage() {
         return unknownCommandMessage;
     }
@@ -140,49 +199,49 @@ public class ProxyHiderSettings {
         return !noPermissionMessage.isBlank();
     }
 
-    public boolean isAlwaysShow(String commandLabel, String group) {
-        String normalized = normalize(commandLabel);
-        Set<String> groupSet = groupAlwaysShow.get(normalizeGroup(group));
-        if (matches(normalized, groupSet)) {
-            return true;
-        }
-        return matches(normalized, alwaysShow);
+    public RuleSet rules() {
+        return rules;
     }
 
-    public boolean isAlwaysHide(String commandLabel, String group) {
-        String normalized = normalize(commandLabel);
-        Set<String> groupSet = groupAlwaysHide.get(normalizeGroup(group));
-        if (matches(normalized, groupSet)) {
-            return true;
+    // Rules for players on the given backend; servers without a [servers.<name>] section use the global rules.
+    public RuleSet rules(String server) {
+        if (server == null || serverRules.isEmpty()) {
+            return rules;
         }
-        return matches(normalized, alwaysHide);
+        return serverRules.getOrDefault(server.toLowerCase(Locale.ROOT), rules);
     }
 
-    private String normalize(String command) {
-        if (command == null) {
-            return "";
-        }
-        String normalized = command.startsWith("/") ? command.substring(1) : command;
-        return normalized.toLowerCase(Locale.ROOT);
+    // The global RuleSet and every per-server one, for reporting.
+    public List<RuleSet> allRules() {
+        List<RuleSet> all = new ArrayList<>();
+        all.add(rules);
+        all.addAll(serverRules.values());
+        return all;
     }
 
-    private boolean checkBase(String normalized, Set<String> set) {
-        int colonIndex = normalized.indexOf(':');
-        if (colonIndex >= 0) {
-            String base = normalized.substring(colonIndex + 1);
-            return set.contains(base);
+    // False means no rule on any backend, for any group, can block this label.
+    public boolean mayHide(CharSequence label, int from, int to) {
+        if (rules.mayHide(label, from, to)) {
+            return true;
+        }
+        for (RuleSet server : serverRules.values()) {
+            if (server.mayHide(label, from, to)) {
+                return true;
+            }
         }
         return false;
     }
 
-    private boolean matches(String normalized, Set<String> set) {
-        if (set == null || set.isEmpty()) {
-            return false;
-        }
-        if (set.contains(normalized)) {
-            return true;
-        }
-        return checkBase(normalized, set);
+    public Decision decision(String commandLabel, String group) {
+        return rules.decision(commandLabel, group);
+    }
+
+    public boolean isAlwaysShow(String commandLabel, String group) {
+        return decision(commandLabel, group).alwaysShow();
+    }
+
+    public boolean isAlwaysHide(String commandLabel, String group) {
+        return decision(commandLabel, group).alwaysHide();
     }
 
     private static Map<String, Set<String>> readGroupLists(Config config, String basePath, String listName) {
@@ -193,17 +252,47 @@ public class ProxyHiderSettings {
         }
         for (String key : section.valueMap().keySet()) {
             String path = basePath + "." + key + "." + listName;
-            Set<String> values = toLowerSet(config.getOrElse(path, Collections.emptyList()));
-            map.put(normalizeGroup(key), values);
+            Set<String> values = Labels.toLowerSet(config.getOrElse(path, Collections.emptyList()));
+            map.put(Labels.normalizeGroup(key), values);
         }
         return Collections.unmodifiableMap(map);
     }
 
-    private static String normalizeGroup(String group) {
-        if (group == null || group.isEmpty()) {
-            return "default";
+    private static Map<String, ServerExceptions> readServerExceptions(Config config) {
+        Object maybeSection = config.get("servers");
+        if (!(maybeSection instanceof Config section)) {
+            return Collections.emptyMap();
+        }
+        Map<String, ServerExceptions> map = new HashMap<>();
+        for (Map.Entry<String, Object> entry : section.valueMap().entrySet()) {
+            if (!(entry.getValue() instanceof Config server)) {
+                continue;
+            }
+            map.put(entry.getKey().toLowerCase(Locale.ROOT), new ServerExceptions(
+                    Labels.toLowerSet(server.getOrElse("always-show", Collections.emptyList())),
+                    Labels.toLowerSet(server.getOrElse("always-hide", Collections.emptyList())),
+                    readGroupLists(server, "per-group", "always-show"),
+                    readGroupLists(server, "per-group", "always-hide")));
         }
-        return group.toLowerCase(Locale.ROOT);
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static Set<String> union(Set<String> base, Set<String> extra) {
+        if (extra.isEmpty()) {
+            return base;
+        }
+        Set<String> merged = new HashSet<>(base);
+        merged.addAll(extra);
+        return Collections.unmodifiableSet(merged);
+    }
+
+    private static Map<String, Set<String>> union(Map<String, Set<String>> base, Map<String, Set<String>> extra) {
+        if (extra.isEmpty()) {
+            return base;
+        }
+        Map<String, Set<String>> merged = new HashMap<>(base);
+        extra.forEach((group, labels) -> merged.merge(group, labels, ProxyHiderSettings::union));
+        return Collections.unmodifiableMap(merged);
     }
 
     private static String sanitizeMessage(Object value) {
@@ -212,4 +301,10 @@ public class ProxyHiderSettings {
         }
         return String.valueOf(value);
     }
+
+    public record ServerExceptions(Set<String> alwaysShow,
+                                   Set<String> alwaysHide,
+                                   Map<String, Set<String>> groupAlwaysShow,
+                                   Map<String, Set<String>> groupAlwaysHide) {
+    }
 }
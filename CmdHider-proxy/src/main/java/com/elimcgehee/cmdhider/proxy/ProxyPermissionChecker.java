@@ -1,15 +1,22 @@
 package com.elimcgehee.cmdhider.proxy;
 
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.cacheddata.CachedPermissionData;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.util.Tristate;
 import com.velocitypowered.api.proxy.Player;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ProxyPermissionChecker {
 
     private final LuckPerms luckPerms;
+    // One fingerprint per player per LuckPerms recalculation. LuckPerms replaces the CachedPermissionData on
+    // recalculation, so a stale entry never matches by identity even if it races the recalc event.
+    private final Map<UUID, Cached> fingerprints = new ConcurrentHashMap<>();
 
     public ProxyPermissionChecker(LuckPerms luckPerms) {
         this.luckPerms = luckPerms;
@@ -33,6 +40,50 @@ public class ProxyPermissionChecker {
         return player.hasPermission(permission);
     }
 
+    // One adapter lookup per event yields both the primary group and the permission fingerprint.
+    public Resolved resolve(Player player) {
+        User user = luckPerms == null ? null : luckPerms.getPlayerAdapter(Player.class).getUser(player);
+        CachedPermissionData data = user == null ? null : user.getCachedData().getPermissionData();
+        String group = user != null && user.getPrimaryGroup() != null
+                ? user.getPrimaryGroup().toLowerCase(Locale.ROOT)
+                : "default";
+        // Without LuckPerms there is nothing to compare, so each player gets their own fingerprint.
+        Object fingerprint = data != null ? fingerprint(player.getUniqueId(), data) : player.getUniqueId();
+        return new Resolved(group, fingerprint);
+    }
+
+    public void forget(UUID playerId) {
+        fingerprints.remove(playerId);
+    }
+
+    private Fingerprint fingerprint(UUID playerId, CachedPermissionData data) {
+        Cached cached = fingerprints.get(playerId);
+        if (cached != null && cached.data() == data) {
+            return cached.fingerprint();
+        }
+        Map<String, Boolean> permissions = data.getPermissionMap();
+        Fingerprint fingerprint = new Fingerprint(permissions, hash(permissions));
+        fingerprints.put(playerId, new Cached(data, fingerprint));
+        return fingerprint;
+    }
+
+    // Order-independent 64-bit hash: FNV-1a per node and value, finalized with the SplitMix64 mixer, then summed.
+    static long hash(Map<String, Boolean> permissions) {
+        long sum = permissions.size();
+        for (Map.Entry<String, Boolean> entry : permissions.entrySet()) {
+            long h = 0xcbf29ce484222325L;
+            String node = entry.getKey();
+            for (int i = 0; i < node.length(); i++) {
+                h = (h ^ node.charAt(i)) * 0x100000001b3L;
+            }
+            h = (h ^ (Boolean.TRUE.equals(entry.getValue()) ? 1 : 2)) * 0x100000001b3L;
+            h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+            h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+            sum += h ^ (h >>> 31);
+        }
+        return sum;
+    }
+
     public String getPrimaryGroup(Player player) {
         if (luckPerms != null) {
             User user = luckPerms.getPlayerAdapter(Player.class).getUser(player);
@@ -42,4 +93,42 @@ public class ProxyPermissionChecker {
         }
         return "default";
     }
+
+    private record Cached(CachedPermissionData data, Fingerprint fingerprint) {
+    }
+
+    // The hash only picks the bucket: equal fingerprints always have equal permission maps, so a collision
+    // can never hand one player another's pruned tree. A player's own map is the same instance until LuckPerms
+    // recalculates, so repeat lookups compare by identity.
+    static final class Fingerprint {
+
+        private final Map<String, Boolean> permissions;
+        private final long hash;
+
+        Fingerprint(Map<String, Boolean> permissions, long hash) {
+            this.permissions = permissions;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Fingerprint fingerprint)) {
+                return false;
+            }
+            return hash == fingerprint.hash
+                    && (permissions == fingerprint.permissions || permissions.equals(fingerprint.permissions));
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    // Players with equal fingerprints resolve every LuckPerms-backed requirement the same way.
+    public record Resolved(String group, Object fingerprint) {
+    }
 }
@@ -0,0 +1,122 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.CommandSendFlightEvent;
+import com.elimcgehee.cmdhider.core.FilterMetrics;
+import com.elimcgehee.cmdhider.core.TabCompleteFlightEvent;
+import com.destroystokyo.paper.event.brigadier.AsyncPlayerSendCommandsEvent;
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.RootCommandNode;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Runs the same filtering as CommandFilterListener on Paper's async events so the work stays off the tick loop.
+// The sync listener remains registered and acts as the fallback whenever Paper fires these events synchronously.
+public class AsyncCommandFilterListener implements Listener {
+
+    private final CmdHiderPlugin plugin;
+    private final CommandFilterListener filter;
+    private final FilterMetrics.Handler sendMetrics;
+    private final FilterMetrics.Handler tabCompleteMetrics;
+
+    public AsyncCommandFilterListener(CmdHiderPlugin plugin, CommandFilterListener filter, FilterMetrics metrics) {
+        this.plugin = plugin;
+        this.filter = filter;
+        filter.chargeTabCompletesAsync();
+        this.sendMetrics = metrics.handler("onAsyncCommandSend");
+        this.tabCompleteMetrics = metrics.handler("onAsyncTabComplete");
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onAsyncCommandSend(AsyncPlayerSendCommandsEvent<?> event) {
+        // Paper fires this twice; the sync pass is left to PlayerCommandSendEvent.
+        if (!event.isAsynchronous()) {
+            return;
+        }
+        HiderSettings settings = plugin.getSettings();
+        if (settings == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        CommandSendFlightEvent flight = new CommandSendFlightEvent();
+        flight.begin();
+        RootCommandNode<?> root = event.getCommandNode();
+        Set<String> visible = new HashSet<>();
+        for (CommandNode<?> node : root.getChildren()) {
+            visible.add(node.getName());
+        }
+        int before = visible.size();
+        List<String> sent = flight.isEnabled() ? new ArrayList<>(visible) : null;
+        filter.filterCommands(event.getPlayer(), visible, settings);
+        root.getChildren().removeIf(node -> !visible.contains(node.getName()));
+        sendMetrics.hidden(before - visible.size());
+        sendMetrics.passed(visible.size());
+        sendMetrics.recordSince(start);
+        flight.end();
+        if (sent != null && flight.shouldCommit()) {
+            flight.emit("onAsyncCommandSend", event.getPlayer().getName(), filter.groupOf(event.getPlayer()),
+                    sent, visible, filter.rules(settings));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (!event.isCommand()) {
+            return;
+        }
+        HiderSettings settings = plugin.getSettings();
+        if (settings == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterTabComplete(event, settings);
+        } finally {
+            tabCompleteMetrics.recordSince(start);
+        }
+    }
+
+    private void filterTabComplete(AsyncTabCompleteEvent event, HiderSettings settings) {
+        TabCompleteFlightEvent flight = new TabCompleteFlightEvent();
+        flight.begin();
+        if (!filter.allowTabComplete(event.getSender(), settings)) {
+            event.setCompletions(Collections.emptyList());
+            event.setHandled(true);
+            tabCompleteMetrics.blocked();
+            filter.recordTabComplete(flight, "onAsyncTabComplete", event.getSender(), null, event.getBuffer(), null,
+                    "THROTTLED", 0, 0);
+            return;
+        }
+        String group = filter.groupOf(event.getSender());
+        // Answering here skips the command's own completer and the sync event on the main thread entirely.
+        if (filter.hidesSubcommandSuggestions(event.getSender(), event.getBuffer(), settings, group)) {
+            event.setCompletions(Collections.emptyList());
+            event.setHandled(true);
+            tabCompleteMetrics.blocked();
+            filter.recordTabComplete(flight, "onAsyncTabComplete", event.getSender(), group, event.getBuffer(), settings,
+                    "BASE_HIDDEN", 0, 0);
+            return;
+        }
+        // Unhandled events are completed on the main thread later, where the sync listener filters them.
+        if (!event.isHandled()) {
+            return;
+        }
+        List<String> completions = event.getCompletions();
+        List<String> filtered = filter.filterCompletions(event.getSender(), event.getBuffer(), completions, settings, group);
+        if (filtered != null) {
+            event.setCompletions(filtered);
+        }
+        int kept = filtered == null ? completions.size() : filtered.size();
+        tabCompleteMetrics.hidden(completions.size() - kept);
+        tabCompleteMetrics.passed(kept);
+        filter.recordTabComplete(flight, "onAsyncTabComplete", event.getSender(), group, event.getBuffer(), settings, "RULES",
+                completions.size(), completions.size() - kept);
+    }
+}
@@ -0,0 +1,54 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.PermissionLookup;
+import org.bukkit.command.Command;
+import org.bukkit.entity.Player;
+import org.bukkit.help.HelpTopic;
+
+public class BukkitPermissionLookup implements PermissionLookup<Player> {
+
+    private final CommandResolver commandResolver;
+    private final PermissionChecker permissionChecker;
+
+    public BukkitPermissionLookup(CommandResolver commandResolver, PermissionChecker permissionChecker) {
+        this.commandResolver = commandResolver;
+        this.permissionChecker = permissionChecker;
+    }
+
+    @Override
+    public boolean canUse(Player player, String label) {
+        return canUse(player, label, commandResolver.current(), null);
+    }
+
+    // With a profile resolved from the same snapshot, declared permissions are answered from its bitset
+    // instead of a LuckPerms lookup per command.
+    public boolean canUse(Player player, String label, CommandResolver.Snapshot snapshot, PermissionProfile profile) {
+        ResolvedCommand resolved = snapshot.resolve(label).orElse(null);
+        if (resolved == null) {
+            return true;
+        }
+
+        // If the command exists and declares a permission, check against LuckPerms.
+        Command command = resolved.command();
+        if (command != null) {
+            if (resolved.permission() != null && !hasPermission(player, resolved, snapshot, profile)) {
+                return false;
+            }
+            if (!command.testPermissionSilent(player)) {
+                return false;
+            }
+        }
+
+        // Fall back to help topics; they respect per-command permissions too.
+        HelpTopic topic = resolved.helpTopic();
+        return topic == null || topic.canSee(player);
+    }
+
+    private boolean hasPermission(Player player, ResolvedCommand resolved, CommandResolver.Snapshot snapshot,
+                                  PermissionProfile profile) {
+        if (profile != null && profile.resolvedFrom(snapshot.permissionNodes())) {
+            return profile.grantsAny(resolved.permissionIds());
+        }
+        return permissionChecker.hasPermission(player, resolved.permission());
+    }
+}
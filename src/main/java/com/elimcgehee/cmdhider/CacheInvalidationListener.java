@@ -0,0 +1,41 @@
+package com.elimcgehee.cmdhider;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+
+public class CacheInvalidationListener implements Listener {
+
+    private final CmdHiderPlugin plugin;
+    private final VisibilityCache visibilityCache;
+
+    public CacheInvalidationListener(CmdHiderPlugin plugin, VisibilityCache visibilityCache) {
+        this.plugin = plugin;
+        this.visibilityCache = visibilityCache;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerLoad(ServerLoadEvent event) {
+        plugin.handleCommandMapChange();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        plugin.handleCommandMapChange();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        plugin.handleCommandMapChange();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        visibilityCache.forget(event.getPlayer().getUniqueId());
+        plugin.getRefreshScheduler().forget(event.getPlayer().getUniqueId());
+    }
+}
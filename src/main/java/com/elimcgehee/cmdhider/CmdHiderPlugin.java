@@ -1,20 +1,52 @@
 package com.elimcgehee.cmdhider;
 
+import com.elimcgehee.cmdhider.core.ConfigWatcher;
+import com.elimcgehee.cmdhider.core.DecisionTrace;
+import com.elimcgehee.cmdhider.core.FilterMetrics;
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.RuleStats;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Level;
+import javax.management.JMException;
 
 public class CmdHiderPlugin extends JavaPlugin {
 
-    private HiderSettings settings;
+    // Sent by the Velocity plugin after a proxy-side reload.
+    private static final String REFRESH_CHANNEL = "cmdhider:refresh";
+
+    private volatile HiderSettings settings;
     private LuckPerms luckPerms;
     private CommandResolver commandResolver;
     private PermissionChecker permissionChecker;
+    private VisibilityCache visibilityCache;
+    private CompletionIndex completionIndex;
+    private RuleMaskIndex ruleMaskIndex;
+    private CommandFilterListener filterListener;
+    private CommandRefreshScheduler refreshScheduler;
+    private ConfigWatcher configWatcher;
+    private RuleStats ruleStats;
+    private final FilterMetrics metrics = new FilterMetrics();
+    private final DecisionTrace trace = new DecisionTrace();
+    private final AtomicLong reloadSequence = new AtomicLong();
+    private boolean refreshScheduled;
 
     @Override
     public void onEnable() {
@@ -23,19 +55,51 @@ public class CmdHiderPlugin extends JavaPlugin {
         hookLuckPerms();
 
         this.commandResolver = new CommandResolver(getLogger());
+        commandResolver.refresh();
         this.permissionChecker = new PermissionChecker(luckPerms);
+        this.visibilityCache = new VisibilityCache();
+        BukkitPermissionLookup permissionLookup = new BukkitPermissionLookup(commandResolver, permissionChecker);
+        RuleEngine<Player> ruleEngine = new RuleEngine<>(commandResolver, permissionLookup);
+        this.completionIndex = new CompletionIndex();
+        this.ruleMaskIndex = new RuleMaskIndex();
+        this.refreshScheduler = new CommandRefreshScheduler(this);
+        getServer().getServicesManager().register(CommandRefreshScheduler.class, refreshScheduler, this, ServicePriority.Normal);
 
-        getServer().getPluginManager().registerEvents(
-                new CommandFilterListener(this, commandResolver, permissionChecker, getLogger()), this
-        );
+        this.filterListener = new CommandFilterListener(this, commandResolver, permissionChecker,
+                visibilityCache, completionIndex, ruleEngine, permissionLookup, ruleMaskIndex, new SuggestionIndex(),
+                metrics, trace);
+        getServer().getPluginManager().registerEvents(filterListener, this);
+        if (getConfig().getBoolean("options.async-filtering", true)) {
+            getServer().getPluginManager().registerEvents(new AsyncCommandFilterListener(this, filterListener, metrics), this);
+        }
+        getServer().getPluginManager().registerEvents(new CacheInvalidationListener(this, visibilityCache), this);
+        subscribeLuckPermsEvents();
+        // Trace events are formatted and logged here, once a second, never on the thread that recorded them.
+        getServer().getScheduler().runTaskTimerAsynchronously(this, () -> trace.drain(getLogger()::info), 20L, 20L);
 
         Optional.ofNullable(getCommand("cmdhider")).ifPresent(cmd -> cmd.setExecutor(this::onCommand));
+        // Any client can send on this channel, so it only exists when a CmdHider proxy is known to sit in front.
+        if (getConfig().getBoolean("options.accept-proxy-refresh", false)) {
+            getServer().getMessenger().registerIncomingPluginChannel(this, REFRESH_CHANNEL,
+                    (channel, player, message) -> refreshScheduler.refreshRequested(player));
+        }
+        startConfigWatcher();
+        registerRuleStats();
 
         getLogger().info("CmdHider enabled.");
     }
 
     @Override
     public void onDisable() {
+        if (refreshScheduler != null) {
+            refreshScheduler.cancel();
+        }
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (ruleStats != null) {
+            ruleStats.unregister();
+        }
         getLogger().info("CmdHider disabled.");
     }
 
@@ -43,9 +107,14 @@ public class CmdHiderPlugin extends JavaPlugin {
         return settings;
     }
 
+    public CommandRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
-        if (args.length == 0 || !"reload".equalsIgnoreCase(args[0])) {
-            sender.sendMessage("Usage: /cmdhider reload");
+        if (args.length == 0 || !("reload".equalsIgnoreCase(args[0]) || "stats".equalsIgnoreCase(args[0])
+                || "rules".equalsIgnoreCase(args[0]))) {
+            sender.sendMessage("Usage: /cmdhider <reload|stats [reset]|rules>");
             return true;
         }
 
@@ -57,14 +126,143 @@ public class CmdHiderPlugin extends JavaPlugin {
             return true;
         }
 
-        reloadSettings();
-        sender.sendMessage("CmdHider configuration reloaded.");
+        if ("stats".equalsIgnoreCase(args[0])) {
+            if (args.length > 1 && "reset".equalsIgnoreCase(args[1])) {
+                metrics.reset();
+                sender.sendMessage("CmdHider stats reset.");
+                return true;
+            }
+            metrics.report().forEach(sender::sendMessage);
+            sender.sendMessage("permission profiles cached: " + visibilityCache.profileCount());
+            sender.sendMessage(filterListener.probeSummary());
+            return true;
+        }
+
+        if ("rules".equalsIgnoreCase(args[0])) {
+            ruleStats.report().report(10).forEach(sender::sendMessage);
+            return true;
+        }
+
+        sender.sendMessage("Reloading CmdHider configuration...");
+        reloadAsync(sender::sendMessage);
         return true;
     }
 
+    // Called on the main thread; the snapshot is rebuilt one tick later so plugin enable storms coalesce
+    // and async handlers never read the live command map. Until then every thread keeps the previous one.
+    public void handleCommandMapChange() {
+        if (refreshScheduled) {
+            return;
+        }
+        refreshScheduled = true;
+        getServer().getScheduler().runTask(this, () -> {
+            refreshScheduled = false;
+            commandResolver.refresh();
+            visibilityCache.invalidateAll();
+            completionIndex.invalidate();
+            ruleMaskIndex.invalidate();
+        });
+    }
+
+    // Parses and compiles off the main thread; the main thread only swaps in the finished snapshot.
+    private void reloadAsync(Consumer<String> feedback) {
+        long sequence = reloadSequence.incrementAndGet();
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            HiderSettings loaded;
+            try {
+                loaded = HiderSettings.fromConfig(loadConfigFile());
+            } catch (IOException | InvalidConfigurationException | IllegalArgumentException ex) {
+                getLogger().log(Level.SEVERE, "Failed to load config.yml; keeping previous settings.", ex);
+                loaded = null;
+            }
+            if (!isEnabled()) {
+                return;
+            }
+            HiderSettings result = loaded;
+            getServer().getScheduler().runTask(this, () -> {
+                if (result == null) {
+                    feedback.accept("CmdHider reload failed; see console.");
+                    return;
+                }
+                // A newer reload started while this one was parsing; let that one win.
+                if (sequence != reloadSequence.get()) {
+                    return;
+                }
+                applySettings(result);
+                feedback.accept("CmdHider configuration reloaded.");
+            });
+        });
+    }
+
+    private void applySettings(HiderSettings loaded) {
+        this.settings = loaded;
+        trace.configure(loaded.traceOptions());
+        commandResolver.refresh();
+        visibilityCache.invalidateAll();
+        completionIndex.invalidate();
+        ruleMaskIndex.invalidate();
+        refreshScheduler.refreshAll();
+    }
+
+    private YamlConfiguration loadConfigFile() throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(new File(getDataFolder(), "config.yml"));
+        return config;
+    }
+
+    private void startConfigWatcher() {
+        if (!getConfig().getBoolean("options.auto-reload", false)) {
+            return;
+        }
+        configWatcher = new ConfigWatcher(new File(getDataFolder(), "config.yml").toPath(),
+                getConfig().getLong("options.auto-reload-debounce-ms", 500L),
+                () -> {
+                    if (isEnabled()) {
+                        reloadAsync(getLogger()::info);
+                    }
+                },
+                getLogger());
+        try {
+            configWatcher.start();
+        } catch (IOException ex) {
+            getLogger().log(Level.WARNING, "Could not watch config.yml; use /cmdhider reload instead.", ex);
+            configWatcher = null;
+        }
+    }
+
+    private void registerRuleStats() {
+        try {
+            ruleStats = new RuleStats("paper", () -> {
+                HiderSettings current = settings;
+                return current == null ? List.of() : List.of(current.rules());
+            });
+            ruleStats.register();
+        } catch (JMException ex) {
+            getLogger().log(Level.WARNING, "Could not register the RuleStats MBean; /cmdhider rules still works.", ex);
+        }
+    }
+
     private void reloadSettings() {
         reloadConfig();
-        this.settings = HiderSettings.fromConfig(getConfig());
+        try {
+            this.settings = HiderSettings.fromConfig(getConfig());
+            trace.configure(settings.traceOptions());
+        } catch (IllegalArgumentException ex) {
+            getLogger().log(Level.SEVERE, "Failed to load config.yml; keeping previous settings.", ex);
+        }
+    }
+
+    private void refreshMembers(String group) {
+        List<Player> members = new ArrayList<>();
+        for (Player player : getServer().getOnlinePlayers()) {
+            if (permissionChecker.inheritsGroup(player, group)) {
+                visibilityCache.invalidate(player.getUniqueId());
+                members.add(player);
+            }
+        }
+        if (!members.isEmpty()) {
+            refreshScheduler.refresh(members);
+        }
     }
 
     private void hookLuckPerms() {
@@ -76,4 +274,16 @@ public class CmdHiderPlugin extends JavaPlugin {
             getLogger().log(Level.WARNING, "LuckPerms not found; falling back to Bukkit permissions.");
         }
     }
+
+    private void subscribeLuckPermsEvents() {
+        if (luckPerms == null) {
+            return;
+        }
+        luckPerms.getEventBus().subscribe(this, UserDataRecalculateEvent.class,
+                event -> visibilityCache.invalidate(event.getUser().getUniqueId()));
+        // Group recalculations also fire on network syncs and group loads, so only the group's online members
+        // are invalidated and queued; the scheduler dedupes a burst of them into one refresh per player.
+        luckPerms.getEventBus().subscribe(this, GroupDataRecalculateEvent.class,
+                event -> refreshMembers(event.getGroup().getName()));
+    }
 }
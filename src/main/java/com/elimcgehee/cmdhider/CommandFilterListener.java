@@ -1,36 +1,81 @@
 package com.elimcgehee.cmdhider;
 
-import org.bukkit.ChatColor;
-import org.bukkit.command.Command;
+import com.elimcgehee.cmdhider.core.Bitsets;
+import com.elimcgehee.cmdhider.core.CommandBlockedFlightEvent;
+import com.elimcgehee.cmdhider.core.CommandSendFlightEvent;
+import com.elimcgehee.cmdhider.core.DecisionTrace;
+import com.elimcgehee.cmdhider.core.ExecutionVerdict;
+import com.elimcgehee.cmdhider.core.FilterMetrics;
+import com.elimcgehee.cmdhider.core.LabelTrie;
+import com.elimcgehee.cmdhider.core.ProbeLimiter;
+import com.elimcgehee.cmdhider.core.RuleMasks;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import com.elimcgehee.cmdhider.core.RuleEngine;
+import com.elimcgehee.cmdhider.core.TabCompleteFlightEvent;
+import com.elimcgehee.cmdhider.core.Verdict;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.server.TabCompleteEvent;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.logging.Logger;
+import java.util.UUID;
 
 public class CommandFilterListener implements Listener {
 
     private final CmdHiderPlugin plugin;
     private final CommandResolver commandResolver;
     private final PermissionChecker permissionChecker;
-    private final Logger logger;
+    private final VisibilityCache visibilityCache;
+    private final CompletionIndex completionIndex;
+    private final RuleEngine<Player> ruleEngine;
+    private final BukkitPermissionLookup permissionLookup;
+    private final RuleMaskIndex ruleMaskIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final FilterMetrics.Handler sendMetrics;
+    private final FilterMetrics.Handler tabCompleteMetrics;
+    private final FilterMetrics.Handler preprocessMetrics;
+    private final DecisionTrace trace;
+    private static final String BYPASS_RATE_LIMIT = "cmdhider.bypass.ratelimit";
+
+    private final ProbeLimiter<UUID> tabCompleteLimiter = new ProbeLimiter<>();
+    private final ProbeLimiter<UUID> commandLimiter = new ProbeLimiter<>();
+    // Set when the async listener is registered: it sees every player tab complete first and charges it there.
+    private volatile boolean tabCompletesChargedAsync;
 
     public CommandFilterListener(CmdHiderPlugin plugin,
                                  CommandResolver commandResolver,
                                  PermissionChecker permissionChecker,
-                                 Logger logger) {
+                                 VisibilityCache visibilityCache,
+                                 CompletionIndex completionIndex,
+                                 RuleEngine<Player> ruleEngine,
+                                 BukkitPermissionLookup permissionLookup,
+                                 RuleMaskIndex ruleMaskIndex,
+                                 SuggestionIndex suggestionIndex,
+                                 FilterMetrics metrics,
+                                 DecisionTrace trace) {
         this.plugin = plugin;
         this.commandResolver = commandResolver;
         this.permissionChecker = permissionChecker;
-        this.logger = logger;
+        this.visibilityCache = visibilityCache;
+        this.completionIndex = completionIndex;
+        this.ruleEngine = ruleEngine;
+        this.permissionLookup = permissionLookup;
+        this.ruleMaskIndex = ruleMaskIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.sendMetrics = metrics.handler("onCommandSend");
+        this.tabCompleteMetrics = metrics.handler("onTabComplete");
+        this.preprocessMetrics = metrics.handler("onCommandPreprocess");
+        this.trace = trace;
     }
 
     @EventHandler(priority = EventPriority.HIGH)
@@ -39,11 +84,21 @@ public class CommandFilterListener implements Listener {
         if (settings == null) {
             return;
         }
-        Player player = event.getPlayer();
-        String group = permissionChecker.getPrimaryGroup(player);
+        long start = System.nanoTime();
+        CommandSendFlightEvent flight = new CommandSendFlightEvent();
+        flight.begin();
         Collection<String> commands = event.getCommands();
-
-        commands.removeIf(cmd -> shouldHideCommand(player, cmd, settings, group));
+        int before = commands.size();
+        List<String> sent = flight.isEnabled() ? new ArrayList<>(commands) : null;
+        filterCommands(event.getPlayer(), commands, settings);
+        sendMetrics.hidden(before - commands.size());
+        sendMetrics.passed(commands.size());
+        sendMetrics.recordSince(start);
+        flight.end();
+        if (sent != null && flight.shouldCommit()) {
+            Player player = event.getPlayer();
+            flight.emit("onCommandSend", player.getName(), groupOf(player), sent, commands, rules(settings));
+        }
     }
 
     @EventHandler(priority = EventPriority.LOW)
@@ -55,28 +110,253 @@ public class CommandFilterListener implements Listener {
         if (settings == null) {
             return;
         }
+        TabCompleteFlightEvent flight = new TabCompleteFlightEvent();
+        flight.begin();
+        if (!tabCompletesChargedAsync && !allowTabComplete(event.getSender(), settings)) {
+            int dropped = event.getCompletions().size();
+            event.setCompletions(Collections.emptyList());
+            tabCompleteMetrics.blocked();
+            recordTabComplete(flight, "onTabComplete", event.getSender(), null, event.getBuffer(), null, "THROTTLED",
+                    dropped, dropped);
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> completions = event.getCompletions();
+        String group = groupOf(event.getSender());
+        boolean baseHidden = hidesSubcommandSuggestions(event.getSender(), event.getBuffer(), settings, group);
+        List<String> filtered = baseHidden
+                ? Collections.emptyList()
+                : filterCompletions(event.getSender(), event.getBuffer(), completions, settings, group);
+        if (filtered != null) {
+            event.setCompletions(filtered);
+        }
+        int kept = filtered == null ? completions.size() : filtered.size();
+        tabCompleteMetrics.hidden(completions.size() - kept);
+        tabCompleteMetrics.passed(kept);
+        tabCompleteMetrics.recordSince(start);
+        recordTabComplete(flight, "onTabComplete", event.getSender(), group, event.getBuffer(), settings,
+                baseHidden ? "BASE_HIDDEN" : "RULES", completions.size(), completions.size() - kept);
+    }
+
+    // The label and the rules deciding it are only looked up when a recording is actually taking the event.
+    // Without settings (a throttled probe) no rule is looked up at all.
+    void recordTabComplete(TabCompleteFlightEvent flight, String source, CommandSender sender, String group,
+                           String buffer, HiderSettings settings, String verdict, int completions, int hidden) {
+        flight.end();
+        if (flight.shouldCommit()) {
+            String label = extractBaseLabel(buffer).toLowerCase(Locale.ROOT);
+            String rule = settings == null ? null : rules(settings).decidingRules(List.of(label), group);
+            flight.emit(source, sender.getName(), group, label, rule, verdict, completions, hidden);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        tabCompleteLimiter.remove(uuid);
+        commandLimiter.remove(uuid);
+    }
 
-        final String group = (event.getSender() instanceof Player player)
-                ? permissionChecker.getPrimaryGroup(player)
-                : null;
+    // The configured rules applied to the current command map's alias classes.
+    RuleSet rules(HiderSettings settings) {
+        return rules(settings, commandResolver.current());
+    }
+
+    private RuleSet rules(HiderSettings settings, CommandResolver.Snapshot snapshot) {
+        return settings.rules(snapshot.aliases());
+    }
+
+    void chargeTabCompletesAsync() {
+        tabCompletesChargedAsync = true;
+    }
+
+    boolean allowTabComplete(CommandSender sender, HiderSettings settings) {
+        return !(sender instanceof Player player)
+                || tabCompleteLimiter.tryAcquire(player.getUniqueId(), settings.tabCompleteLimit())
+                || player.hasPermission(BYPASS_RATE_LIMIT);
+    }
 
-        // Hide subcommand suggestions only if the base command is already hidden.
-        if (settings.hideSubcommandSuggestions() && event.getBuffer().contains(" ")) {
-            if (event.getSender() instanceof Player player) {
-                String base = extractBaseLabel(event.getBuffer());
-                if (shouldHideCommand(player, base, settings, group)) {
-                    event.setCompletions(Collections.emptyList());
-                    return;
+    // Charged before the label is resolved. Labels the player was last sent as visible are let through first,
+    // so ordinary play never touches the bucket; that check is one map read and one bit test.
+    private boolean allowProbe(Player player, String label, HiderSettings settings) {
+        return sentVisible(player, label)
+                || commandLimiter.tryAcquire(player.getUniqueId(), settings.commandLimit())
+                || player.hasPermission(BYPASS_RATE_LIMIT);
+    }
+
+    private boolean sentVisible(Player player, String label) {
+        VisibilityCache.Entry sent = visibilityCache.get(player.getUniqueId());
+        CommandResolver.Snapshot snapshot = commandResolver.current();
+        if (sent == null || !sent.builtFrom(snapshot)) {
+            return false;
+        }
+        int id = snapshot.labelId(label);
+        return id >= 0 && Bitsets.get(sent.visible(), id);
+    }
+
+    String probeSummary() {
+        String summary = "probes throttled: " + tabCompleteLimiter.throttled() + " tab completes, "
+                + commandLimiter.throttled() + " commands (" + tabCompleteLimiter.tracked() + " players tracked)";
+        Player worst = null;
+        long most = 0;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            long count = tabCompleteLimiter.throttled(player.getUniqueId()) + commandLimiter.throttled(player.getUniqueId());
+            if (count > most) {
+                worst = player;
+                most = count;
+            }
+        }
+        return worst == null ? summary : summary + ", most by " + worst.getName() + " (" + most + ")";
+    }
+
+    // Shared with the async listener; safe off the main thread as long as the caches and snapshots it reads are.
+    void filterCommands(Player player, Collection<String> commands, HiderSettings settings) {
+        String group = permissionChecker.getPrimaryGroup(player);
+        String world = player.getWorld().getName();
+        CommandResolver.Snapshot snapshot = commandResolver.current();
+
+        VisibilityCache.Entry cached = visibilityCache.get(player.getUniqueId(), group, world);
+        if (cached != null && cached.builtFrom(snapshot)) {
+            // The masks are only needed here to credit the rules behind the cached bits.
+            ruleMaskIndex.forGroup(group, rules(settings, snapshot), snapshot.labels()).credit();
+            retainVisible(player, commands, settings, group, snapshot, cached.visible(), null);
+            return;
+        }
+
+        VisibilityCache.Stamp stamp = visibilityCache.stamp(player.getUniqueId());
+        // One LuckPerms lookup resolves every permission node in the command map; players sharing the
+        // resulting profile share the visibility bitset.
+        PermissionProfile profile = permissionChecker.resolve(player, snapshot.permissionNodes());
+        String profileGroup = profile.group();
+        RuleMasks masks = ruleMaskIndex.forGroup(profileGroup, rules(settings, snapshot), snapshot.labels());
+        masks.credit();
+        VisibilityCache.Entry shared = visibilityCache.get(profile);
+        long[] visible;
+        if (shared != null && shared.builtFrom(snapshot)) {
+            visible = withOwnBits(player, snapshot, profile, masks, shared.visible());
+        } else {
+            visible = masks.visible(permitted(player, snapshot, profile, masks.pending()));
+            visibilityCache.put(profile, new VisibilityCache.Entry(profileGroup, world, snapshot.labels(), visible), stamp);
+        }
+        visibilityCache.put(player.getUniqueId(),
+                new VisibilityCache.Entry(profileGroup, world, snapshot.labels(), visible), stamp);
+        retainVisible(player, commands, settings, profileGroup, snapshot, visible, masks);
+    }
+
+    // Only the labels the rules left undecided need a permission check.
+    private long[] permitted(Player player, CommandResolver.Snapshot snapshot, PermissionProfile profile, long[] pending) {
+        long[] permitted = Bitsets.allocate(snapshot.labels().size());
+        for (int id = Bitsets.nextSetBit(pending, 0); id >= 0; id = Bitsets.nextSetBit(pending, id + 1)) {
+            if (permissionLookup.canUse(player, snapshot.labels().get(id), snapshot, profile)) {
+                Bitsets.set(permitted, id);
+            }
+        }
+        return permitted;
+    }
+
+    // Commands with their own permission logic can answer differently for players with the same profile, so
+    // their bits in a shared result are replaced with this player's; the shared array is copied only on a change.
+    private long[] withOwnBits(Player player, CommandResolver.Snapshot snapshot, PermissionProfile profile,
+                               RuleMasks masks, long[] shared) {
+        long[] dependent = snapshot.playerDependent();
+        long[] pending = masks.pending();
+        long[] visible = shared;
+        for (int id = Bitsets.nextSetBit(dependent, 0); id >= 0; id = Bitsets.nextSetBit(dependent, id + 1)) {
+            if (!Bitsets.get(pending, id)) {
+                continue;
+            }
+            boolean usable = permissionLookup.canUse(player, snapshot.labels().get(id), snapshot, profile);
+            if (usable != Bitsets.get(visible, id)) {
+                if (visible == shared) {
+                    visible = shared.clone();
+                }
+                if (usable) {
+                    Bitsets.set(visible, id);
+                } else {
+                    Bitsets.clear(visible, id);
                 }
             }
         }
+        return visible;
+    }
 
-        if (settings.hideNamespaced()) {
-            List<String> filtered = event.getCompletions().stream()
-                    .filter(completion -> shouldKeepCompletion(completion, settings, group))
-                    .collect(java.util.stream.Collectors.toCollection(java.util.ArrayList::new));
-            event.setCompletions(filtered);
+    // masks is only passed on a fresh evaluation, so removals are traced once rather than on every cache hit.
+    private void retainVisible(Player player, Collection<String> commands, HiderSettings settings, String group,
+                               CommandResolver.Snapshot snapshot, long[] visible, RuleMasks masks) {
+        commands.removeIf(cmd -> {
+            int id = snapshot.labelId(cmd);
+            if (id < 0) {
+                // Not in the command map snapshot (e.g. registered since); evaluate it on its own.
+                return shouldHideCommand(player, cmd, settings, group);
+            }
+            if (Bitsets.get(visible, id)) {
+                return false;
+            }
+            if (masks != null) {
+                trace.record("send", player.getName(), cmd, masks.verdict(id, visible));
+            }
+            return true;
+        });
+    }
+
+    String groupOf(CommandSender sender) {
+        return sender instanceof Player player ? permissionChecker.getPrimaryGroup(player) : null;
+    }
+
+    // Hide subcommand suggestions only if the base command is already hidden.
+    boolean hidesSubcommandSuggestions(CommandSender sender, String buffer, HiderSettings settings, String group) {
+        if (!settings.hideSubcommandSuggestions() || buffer.indexOf(' ') < 0 || !(sender instanceof Player player)) {
+            return false;
+        }
+        return shouldHideCommand(player, extractBaseLabel(buffer), settings, group);
+    }
+
+    // Returns the filtered completions, or null when nothing needs to change.
+    List<String> filterCompletions(CommandSender sender, String buffer, List<String> completions, HiderSettings settings,
+                                   String group) {
+        if (!settings.hideNamespaced()) {
+            return null;
         }
+        if (buffer.indexOf(' ') < 0) {
+            return filterRootCompletions(sender, buffer, completions, settings, group);
+        }
+        return completions.stream()
+                .filter(completion -> shouldKeepCompletion(completion, settings, group))
+                .collect(java.util.stream.Collectors.toCollection(java.util.ArrayList::new));
+    }
+
+    // Root labels are answered from the group's trie by prefix: the labels it keeps under the typed prefix that
+    // the player was also sent as visible, which already accounts for permissions. Without current visibility
+    // bits each offered completion is looked up instead, and the list is only copied if something is removed.
+    private List<String> filterRootCompletions(CommandSender sender, String buffer, List<String> completions,
+                                               HiderSettings settings, String group) {
+        CommandResolver.Snapshot snapshot = commandResolver.current();
+        LabelTrie trie = completionIndex.forGroup(group, rules(settings, snapshot), snapshot.labels());
+        long[] visible = sender instanceof Player player ? visibleBits(player, group, snapshot) : null;
+        if (visible != null) {
+            String slash = buffer.startsWith("/") ? "/" : "";
+            List<String> answered = new ArrayList<>();
+            trie.completions(buffer, (label, id) -> {
+                if (Bitsets.get(visible, id)) {
+                    answered.add(slash + label);
+                }
+            });
+            return answered;
+        }
+        List<String> filtered = null;
+        for (int i = 0; i < completions.size(); i++) {
+            String completion = completions.get(i);
+            LabelTrie.Status status = trie.status(completion);
+            boolean keep = status == LabelTrie.Status.UNKNOWN
+                    ? shouldKeepCompletion(completion, settings, group)
+                    : status == LabelTrie.Status.ALLOWED;
+            if (!keep && filtered == null) {
+                filtered = new ArrayList<>(completions.subList(0, i));
+            } else if (keep && filtered != null) {
+                filtered.add(completion);
+            }
+        }
+        return filtered;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
@@ -85,11 +365,23 @@ public class CommandFilterListener implements Listener {
         if (settings == null) {
             return;
         }
+        long start = System.nanoTime();
+        CommandBlockedFlightEvent flight = new CommandBlockedFlightEvent();
+        flight.begin();
+        try {
+            preprocess(event, settings, flight);
+        } finally {
+            preprocessMetrics.recordSince(start);
+        }
+    }
+
+    private void preprocess(PlayerCommandPreprocessEvent event, HiderSettings settings, CommandBlockedFlightEvent flight) {
         String message = event.getMessage();
         if (message.isEmpty() || message.charAt(0) != '/') {
             return;
         }
 
+        Player player = event.getPlayer();
         String withoutSlash = message.substring(1);
         String[] args = withoutSlash.split(" ");
         if (args.length == 0) {
@@ -97,100 +389,97 @@ public class CommandFilterListener implements Listener {
         }
 
         String label = args[0].toLowerCase(Locale.ROOT);
-        Player player = event.getPlayer();
-        String group = permissionChecker.getPrimaryGroup(player);
-
-        // Block always-hide commands outright.
-        if (settings.isAlwaysHide(label, group)) {
-            if (settings.replaceNoPermission() && settings.hasNoPermissionMessage()) {
-                player.sendMessage(settings.noPermissionMessage());
-            }
-            event.setCancelled(true);
-            return;
-        }
-
-        Command command = commandResolver.findCommand(label).orElse(null);
-        if (command == null) {
-            if (settings.replaceUnknownCommand()) {
-                if (settings.hasUnknownCommandMessage()) {
-                    player.sendMessage(settings.unknownCommandMessage());
-                }
-                event.setCancelled(true);
-            }
+        if (!allowProbe(player, label, settings)) {
+            throttled(event, settings, flight, player, label);
             return;
         }
+        String group = permissionChecker.getPrimaryGroup(player);
 
         // Standardize permission denial messaging.
-        if (settings.filterByPermission() || settings.replaceNoPermission()) {
-            if (!canUseCommand(player, label, settings, group)) {
+        boolean checkPermission = settings.filterByPermission() || settings.replaceNoPermission();
+        ExecutionVerdict verdict = ruleEngine.checkExecution(player, label, group, rules(settings), checkPermission);
+        if (verdict != ExecutionVerdict.ALLOWED) {
+            trace.record("preprocess", player.getName(), label, verdict);
+        }
+        switch (verdict) {
+            case BLOCKED_BY_RULE, NO_PERMISSION -> {
                 if (settings.replaceNoPermission() && settings.hasNoPermissionMessage()) {
                     player.sendMessage(settings.noPermissionMessage());
                 }
                 event.setCancelled(true);
+                blocked(flight, settings, player, group, label, verdict.name());
+            }
+            case UNKNOWN_COMMAND -> {
+                if (settings.replaceUnknownCommand()) {
+                    if (settings.hasUnknownCommandMessage()) {
+                        player.sendMessage(settings.unknownCommandMessage());
+                    }
+                    if (settings.hasDidYouMeanMessage()) {
+                        String suggestion = suggest(player, label, group, settings);
+                        if (suggestion != null) {
+                            player.sendMessage(settings.didYouMeanMessage(suggestion));
+                        }
+                    }
+                    event.setCancelled(true);
+                    blocked(flight, settings, player, group, label, verdict.name());
+                } else {
+                    preprocessMetrics.passed(1);
+                }
             }
+            case ALLOWED -> preprocessMetrics.passed(1);
         }
     }
 
-    private boolean shouldKeepCompletion(String completion, HiderSettings settings, String group) {
-        String normalized = completion.toLowerCase(Locale.ROOT);
-        if (settings.isAlwaysShow(normalized, group)) {
-            return true;
-        }
-        if (settings.isAlwaysHide(normalized, group)) {
-            return false;
-        }
-        return !settings.hideNamespaced() || !normalized.contains(":");
+    // The player's cached visibility for this group and world, or null unless it was built from snapshot.
+    private long[] visibleBits(Player player, String group, CommandResolver.Snapshot snapshot) {
+        VisibilityCache.Entry cached = visibilityCache.get(player.getUniqueId(), group, player.getWorld().getName());
+        return cached != null && cached.builtFrom(snapshot) ? cached.visible() : null;
     }
 
-    private boolean shouldHideCommand(Player player, String commandLabel, HiderSettings settings, String group) {
-        String normalized = commandLabel.toLowerCase(Locale.ROOT);
-        if (settings.isAlwaysShow(normalized, group)) {
-            return false;
-        }
-        if (settings.isAlwaysHide(normalized, group)) {
-            logIfDebug(settings, "Hiding " + normalized + " because it is in always-hide.");
-            return true;
-        }
+    // Candidates are checked against the player's cached visibility bits when current, else through the rules.
+    // Checking a candidate is not rule traffic, so those lookups are uncounted.
+    private String suggest(Player player, String label, String group, HiderSettings settings) {
+        CommandResolver.Snapshot snapshot = commandResolver.current();
+        long[] visible = visibleBits(player, group, snapshot);
+        return suggestionIndex.suggest(label, snapshot, settings.didYouMeanMaxDistance(), candidate -> visible != null
+                ? Bitsets.get(visible, snapshot.labelId(candidate))
+                : !ruleEngine.evaluate(player, candidate, group, rules(settings, snapshot).uncounted()).hidden());
+    }
 
-        if (settings.hideNamespaced() && normalized.contains(":")) {
-            logIfDebug(settings, "Hiding " + normalized + " because it is namespaced.");
-            return true;
+    // Over budget the label is never resolved, so known, unknown and blocked labels all get the same answer
+    // and a probing client learns nothing. Without replace-unknown-command there is no reply of ours to send,
+    // and the server's would need the lookup, so the command is dropped silently.
+    private void throttled(PlayerCommandPreprocessEvent event, HiderSettings settings, CommandBlockedFlightEvent flight,
+                           Player player, String label) {
+        if (settings.replaceUnknownCommand() && settings.hasUnknownCommandMessage()) {
+            player.sendMessage(settings.unknownCommandMessage());
         }
+        event.setCancelled(true);
+        blocked(flight, null, player, null, label, "THROTTLED");
+    }
 
-        if (settings.filterByPermission() && !canUseCommand(player, normalized, settings, group)) {
-            logIfDebug(settings, "Hiding " + normalized + " because player lacks permission.");
-            return true;
+    // Null settings record no rule: a throttled command is never resolved.
+    private void blocked(CommandBlockedFlightEvent flight, HiderSettings settings, Player player, String group,
+                         String label, String verdict) {
+        preprocessMetrics.blocked();
+        flight.end();
+        if (flight.shouldCommit()) {
+            String rule = settings == null ? null : rules(settings).decidingRules(List.of(label), group);
+            flight.emit("onCommandPreprocess", player.getName(), group, label, rule, verdict);
         }
-
-        return false;
     }
 
-    private boolean canUseCommand(Player player, String commandLabel, HiderSettings settings, String group) {
-        if (settings.isAlwaysShow(commandLabel, group)) {
-            return true;
-        }
-        if (settings.isAlwaysHide(commandLabel, group)) {
-            return false;
-        }
+    private boolean shouldKeepCompletion(String completion, HiderSettings settings, String group) {
+        return ruleEngine.keepCompletion(completion, group, rules(settings));
+    }
 
-        // If the command exists and declares a permission, check against LuckPerms.
-        Command command = commandResolver.findCommand(commandLabel).orElse(null);
-        if (command != null) {
-            boolean allowedByPermission = commandResolver.findPermission(commandLabel)
-                    .map(permission -> permissionChecker.hasPermission(player, permission))
-                    .orElse(true);
-            if (!allowedByPermission) {
-                return false;
-            }
-            if (!command.testPermissionSilent(player)) {
-                return false;
-            }
+    private boolean shouldHideCommand(Player player, String commandLabel, HiderSettings settings, String group) {
+        String normalized = commandLabel.toLowerCase(Locale.ROOT);
+        Verdict verdict = ruleEngine.evaluate(player, normalized, group, rules(settings));
+        if (verdict.hidden()) {
+            trace.record("send", player.getName(), normalized, verdict);
         }
-
-        // Fall back to help topics; they respect per-command permissions too.
-        return commandResolver.findHelpTopic(commandLabel)
-                .map(topic -> topic.canSee(player))
-                .orElse(true);
+        return verdict.hidden();
     }
 
     private String extractBaseLabel(String buffer) {
@@ -201,10 +490,4 @@ public class CommandFilterListener implements Listener {
         }
         return trimmed;
     }
-
-    private void logIfDebug(HiderSettings settings, String message) {
-        if (settings.debug()) {
-            logger.info(ChatColor.stripColor(message));
-        }
-    }
 }
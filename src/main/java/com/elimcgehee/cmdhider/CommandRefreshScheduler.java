@@ -0,0 +1,120 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.ProbeLimiter;
+import com.elimcgehee.cmdhider.core.RateLimit;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+// Re-sends command trees to queued players a few per tick, so a reload, rank sync or bulk permission edit
+// on a full server doesn't spike one tick. Each tick spends at most the configured player count and
+// microseconds, and backs off to one player while the server is already over its tick budget.
+// Registered with Bukkit's ServicesManager; safe to call from any thread.
+public class CommandRefreshScheduler {
+
+    private static final double TICK_MILLIS = 50.0;
+    // Proxy reloads are rare; anything faster is a client forging the channel to make the server re-send trees.
+    private static final RateLimit PROXY_REQUEST_LIMIT = new RateLimit(2, 0.2);
+
+    private final CmdHiderPlugin plugin;
+    private final Set<UUID> pending = new LinkedHashSet<>();
+    private final ProbeLimiter<UUID> proxyRequests = new ProbeLimiter<>();
+    private BukkitTask task;
+
+    public CommandRefreshScheduler(CmdHiderPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void refreshAll() {
+        refresh(plugin.getServer().getOnlinePlayers());
+    }
+
+    public void refresh(Player player) {
+        synchronized (this) {
+            pending.add(player.getUniqueId());
+        }
+        ensureRunning();
+    }
+
+    public void refresh(Collection<? extends Player> players) {
+        synchronized (this) {
+            for (Player player : players) {
+                pending.add(player.getUniqueId());
+            }
+        }
+        ensureRunning();
+    }
+
+    // Messages on the refresh channel arrive on the player's connection, so they are only trusted as far as the limit.
+    public void refreshRequested(Player player) {
+        if (proxyRequests.tryAcquire(player.getUniqueId(), PROXY_REQUEST_LIMIT)) {
+            refresh(player);
+        }
+    }
+
+    public void forget(UUID playerId) {
+        proxyRequests.remove(playerId);
+    }
+
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    public synchronized void cancel() {
+        pending.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private synchronized void ensureRunning() {
+        if (task == null && !pending.isEmpty() && plugin.isEnabled()) {
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    private void tick() {
+        HiderSettings settings = plugin.getSettings();
+        int maxPlayers = settings == null ? 1 : settings.updateCommandsPerTick();
+        long maxNanos = settings == null ? 0L : settings.updateCommandsMaxMicros() * 1_000L;
+        if (Bukkit.getAverageTickTime() > TICK_MILLIS) {
+            maxPlayers = 1;
+        }
+        long start = System.nanoTime();
+        int sent = 0;
+        while (sent < maxPlayers && (maxNanos == 0L || System.nanoTime() - start < maxNanos)) {
+            UUID next = poll();
+            if (next == null) {
+                break;
+            }
+            // Players that left since they were queued are simply skipped.
+            Player player = plugin.getServer().getPlayer(next);
+            if (player != null) {
+                player.updateCommands();
+                sent++;
+            }
+        }
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                cancel();
+            }
+        }
+    }
+
+    private synchronized UUID poll() {
+        Iterator<UUID> it = pending.iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        UUID next = it.next();
+        it.remove();
+        return next;
+    }
+}
@@ -1,74 +1,190 @@
 package com.elimcgehee.cmdhider;
 
+import com.elimcgehee.cmdhider.core.AliasGraph;
+import com.elimcgehee.cmdhider.core.Bitsets;
+import com.elimcgehee.cmdhider.core.CommandLookup;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandMap;
-import org.bukkit.command.PluginCommand;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.help.GenericCommandHelpTopic;
+import org.bukkit.help.HelpMap;
 import org.bukkit.help.HelpTopic;
 import org.bukkit.plugin.PluginManager;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class CommandResolver {
+public class CommandResolver implements CommandLookup {
+
+    private static final int[] NO_IDS = new int[0];
 
     private final Logger logger;
     private CommandMap commandMap;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of(), List.of(), Map.of(), new long[0],
+            AliasGraph.EMPTY);
+    private Field amendedPermissionField;
 
     public CommandResolver(Logger logger) {
         this.logger = logger;
     }
 
+    // Must run on the main thread: the command map and help map are not safe to read concurrently.
+    public synchronized void refresh() {
+        rebuild();
+    }
+
+    public Optional<ResolvedCommand> resolve(String label) {
+        return current().resolve(label);
+    }
+
+    @Override
+    public boolean isKnown(String label) {
+        return findCommand(label).isPresent();
+    }
+
     public Optional<Command> findCommand(String label) {
-        if (label == null || label.isEmpty()) {
-            return Optional.empty();
+        return resolve(label).map(ResolvedCommand::command);
+    }
+
+    public Optional<String> findPermission(String label) {
+        return resolve(label).map(ResolvedCommand::permission);
+    }
+
+    public Optional<HelpTopic> findHelpTopic(String label) {
+        return resolve(label).map(ResolvedCommand::helpTopic);
+    }
+
+    // Every thread reads the same published snapshot; it only changes when refresh() runs. The async and sync
+    // filters therefore bind rules, masks and tries against the same command map instead of taking turns.
+    // Callers that combine several lookups should hold on to one snapshot so node IDs stay consistent.
+    public Snapshot current() {
+        return snapshot;
+    }
+
+    private void rebuild() {
+        HelpMap helpMap = Bukkit.getHelpMap();
+        Map<String, Command> known = new HashMap<>();
+        getCommandMap().getKnownCommands().forEach((label, command) -> {
+            if (command != null) {
+                known.putIfAbsent(label.toLowerCase(Locale.ROOT), command);
+            }
+        });
+
+        // Each distinct permission node gets a dense ID so a player's grants fit in one bitset.
+        Map<String, Integer> nodeIds = new LinkedHashMap<>();
+        Map<String, ResolvedCommand> built = new HashMap<>();
+        for (Map.Entry<String, Command> entry : known.entrySet()) {
+            Command command = entry.getValue();
+            String permission = command.getPermission();
+            if (permission != null && permission.isEmpty()) {
+                permission = null;
+            }
+            built.put(entry.getKey(), new ResolvedCommand(command, permission,
+                    findHelpTopic(helpMap, entry.getKey()), nodeIds(nodeIds, permission)));
         }
-        String normalized = label.toLowerCase(Locale.ROOT);
-        Command direct = getCommandMap().getCommand(normalized);
-        if (direct != null) {
-            return Optional.of(direct);
+        // Help topics can outlive or precede their command registration; keep them resolvable on their own.
+        for (HelpTopic topic : helpMap.getHelpTopics()) {
+            String name = topic.getName().toLowerCase(Locale.ROOT);
+            String label = name.startsWith("/") ? name.substring(1) : name;
+            built.putIfAbsent(label, new ResolvedCommand(null, null, topic, NO_IDS));
         }
-        // Try without namespace
-        if (normalized.contains(":")) {
-            String[] parts = normalized.split(":", 2);
-            Command fallback = getCommandMap().getCommand(parts[1]);
-            if (fallback != null) {
-                return Optional.of(fallback);
+        // help.yml permissions are checked by HelpTopic#canSee, so they belong in the profile too.
+        for (ResolvedCommand resolved : built.values()) {
+            if (resolved.helpTopic() != null) {
+                nodeIds(nodeIds, amendedPermission(resolved.helpTopic()));
             }
         }
-        PluginCommand pluginCommand = Bukkit.getPluginCommand(normalized);
-        if (pluginCommand != null) {
-            return Optional.of(pluginCommand);
+        // Command labels get dense IDs too, so visibility can be stored as one bit per label.
+        List<String> labels = new ArrayList<>();
+        Map<String, Integer> labelIds = new HashMap<>();
+        built.forEach((label, resolved) -> {
+            if (resolved.command() != null) {
+                labelIds.put(label, labels.size());
+                labels.add(label);
+            }
+        });
+        long[] playerDependent = Bitsets.allocate(labels.size());
+        Map<Class<?>, Boolean> nodeOnlyTypes = new HashMap<>();
+        for (int id = 0; id < labels.size(); id++) {
+            if (!nodeOnly(built.get(labels.get(id)), nodeOnlyTypes)) {
+                Bitsets.set(playerDependent, id);
+            }
         }
-        return Optional.empty();
+        // The map holds one Command object under its name, aliases and namespaced forms; those labels form a class.
+        this.snapshot = new Snapshot(Map.copyOf(built), List.copyOf(nodeIds.keySet()), List.copyOf(labels), Map.copyOf(labelIds),
+                playerDependent, AliasGraph.of(known));
     }
 
-    public Optional<String> findPermission(String label) {
-        return findCommand(label).map(Command::getPermission).filter(p -> p != null && !p.isEmpty());
+    // Bukkit's own testPermissionSilent and GenericCommandHelpTopic#canSee only check permission nodes, which
+    // the profile covers. An override (Brigadier requirements, custom help topics) may look at the player,
+    // their world or anything else, so such commands can't be shared between players with equal profiles.
+    private static boolean nodeOnly(ResolvedCommand resolved, Map<Class<?>, Boolean> checked) {
+        boolean command = checked.computeIfAbsent(resolved.command().getClass(),
+                type -> declaredBy(type, Command.class, "testPermissionSilent"));
+        HelpTopic topic = resolved.helpTopic();
+        return command && (topic == null || checked.computeIfAbsent(topic.getClass(),
+                type -> declaredBy(type, GenericCommandHelpTopic.class, "canSee")));
     }
 
-    public Optional<HelpTopic> findHelpTopic(String label) {
-        if (label == null || label.isEmpty()) {
-            return Optional.empty();
+    private static boolean declaredBy(Class<?> type, Class<?> owner, String method) {
+        try {
+            return type.getMethod(method, CommandSender.class).getDeclaringClass() == owner;
+        } catch (NoSuchMethodException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    // Bukkit allows several alternatives separated by ';'; the command is usable if any of them is granted.
+    private static int[] nodeIds(Map<String, Integer> nodeIds, String permission) {
+        if (permission == null) {
+            return NO_IDS;
         }
-        String normalized = label.toLowerCase(Locale.ROOT);
-        HelpTopic topic = Bukkit.getHelpMap().getHelpTopic("/" + normalized);
+        return Arrays.stream(permission.split(";"))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .mapToInt(node -> nodeIds.computeIfAbsent(node, key -> nodeIds.size()))
+                .distinct()
+                .toArray();
+    }
+
+    // help.yml can gate a topic on its own permission; HelpTopic keeps it in a protected field.
+    private String amendedPermission(HelpTopic topic) {
+        try {
+            if (amendedPermissionField == null) {
+                amendedPermissionField = HelpTopic.class.getDeclaredField("amendedPermission");
+                amendedPermissionField.setAccessible(true);
+            }
+            return (String) amendedPermissionField.get(topic);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            return null;
+        }
+    }
+
+    private HelpTopic findHelpTopic(HelpMap helpMap, String normalized) {
+        HelpTopic topic = helpMap.getHelpTopic("/" + normalized);
         if (topic == null) {
-            topic = Bukkit.getHelpMap().getHelpTopic(normalized);
+            topic = helpMap.getHelpTopic(normalized);
         }
-        if (topic == null && normalized.contains(":")) {
-            String[] parts = normalized.split(":", 2);
-            topic = Bukkit.getHelpMap().getHelpTopic("/" + parts[1]);
+        int colonIndex = normalized.indexOf(':');
+        if (topic == null && colonIndex >= 0) {
+            String base = normalized.substring(colonIndex + 1);
+            topic = helpMap.getHelpTopic("/" + base);
             if (topic == null) {
-                topic = Bukkit.getHelpMap().getHelpTopic(parts[1]);
+                topic = helpMap.getHelpTopic(base);
             }
         }
-        return Optional.ofNullable(topic);
+        return topic;
     }
 
     private CommandMap getCommandMap() {
@@ -106,4 +222,41 @@ public class CommandResolver {
         commandMap = new SimpleCommandMap(Bukkit.getServer(), new HashMap<>());
         return commandMap;
     }
+
+    // One published state of the command map: resolved labels, the permission nodes their IDs refer to,
+    // the dense ID of every command label, the labels whose visibility is more than their permission nodes,
+    // and the alias classes.
+    public record Snapshot(Map<String, ResolvedCommand> index,
+                           List<String> permissionNodes,
+                           List<String> labels,
+                           Map<String, Integer> labelIds,
+                           long[] playerDependent,
+                           AliasGraph aliases) {
+
+        // Returns -1 for labels that are not commands in this snapshot.
+        public int labelId(String label) {
+            Integer id = labelIds.get(label);
+            if (id == null) {
+                id = labelIds.get(label.toLowerCase(Locale.ROOT));
+            }
+            return id == null ? -1 : id;
+        }
+
+        public Optional<ResolvedCommand> resolve(String label) {
+            if (label == null || label.isEmpty()) {
+                return Optional.empty();
+            }
+            ResolvedCommand resolved = index.get(label);
+            if (resolved == null) {
+                String normalized = label.toLowerCase(Locale.ROOT);
+                resolved = index.get(normalized);
+                // Try without namespace
+                int colonIndex = normalized.indexOf(':');
+                if (resolved == null && colonIndex >= 0) {
+                    resolved = index.get(normalized.substring(colonIndex + 1));
+                }
+            }
+            return Optional.ofNullable(resolved);
+        }
+    }
 }
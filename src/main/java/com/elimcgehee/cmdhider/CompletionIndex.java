@@ -0,0 +1,39 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.LabelTrie;
+import com.elimcgehee.cmdhider.core.RuleSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-group prefix tries of root labels over the snapshot's label IDs, rebuilt when the rules or the
+// command map change, so the IDs a trie hands out always match the snapshot the caller holds.
+public class CompletionIndex {
+
+    private final Map<String, Tries> tries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public LabelTrie forGroup(String group, RuleSet rules, List<String> labels) {
+        String key = group == null ? "" : group;
+        Tries cached = tries.get(key);
+        if (cached != null && cached.rules() == rules && cached.trie().builtFrom(labels)) {
+            return cached.trie();
+        }
+        long stamp = generation.get();
+        LabelTrie trie = LabelTrie.build(labels, group, rules);
+        if (generation.get() == stamp) {
+            tries.put(key, new Tries(rules, trie));
+        }
+        return trie;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        tries.clear();
+    }
+
+    private record Tries(RuleSet rules, LabelTrie trie) {
+    }
+}
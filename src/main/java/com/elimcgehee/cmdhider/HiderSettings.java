@@ -1,13 +1,17 @@
 package com.elimcgehee.cmdhider;
 
+import com.elimcgehee.cmdhider.core.AliasGraph;
+import com.elimcgehee.cmdhider.core.Decision;
+import com.elimcgehee.cmdhider.core.Labels;
+import com.elimcgehee.cmdhider.core.RateLimit;
+import com.elimcgehee.cmdhider.core.RuleSet;
+import com.elimcgehee.cmdhider.core.TraceOptions;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,6 +29,15 @@ public class HiderSettings {
     private final Map<String, Set<String>> groupAlwaysHide;
     private final String unknownCommandMessage;
     private final String noPermissionMessage;
+    private final TraceOptions traceOptions;
+    private final int updateCommandsPerTick;
+    private final long updateCommandsMaxMicros;
+    private final RateLimit tabCompleteLimit;
+    private final RateLimit commandLimit;
+    private final int didYouMeanMaxDistance;
+    private final String didYouMeanMessage;
+    private final RuleSet rules;
+    private volatile BoundRules bound;
 
     public HiderSettings(boolean hideNamespaced,
                          boolean hideSubcommandSuggestions,
@@ -37,7 +50,14 @@ public class HiderSettings {
                          Map<String, Set<String>> groupAlwaysShow,
                          Map<String, Set<String>> groupAlwaysHide,
                          String unknownCommandMessage,
-                         String noPermissionMessage) {
+                         String noPermissionMessage,
+                         TraceOptions traceOptions,
+                         int updateCommandsPerTick,
+                         long updateCommandsMaxMicros,
+                         RateLimit tabCompleteLimit,
+                         RateLimit commandLimit,
+                         int didYouMeanMaxDistance,
+                         String didYouMeanMessage) {
         this.hideNamespaced = hideNamespaced;
         this.hideSubcommandSuggestions = hideSubcommandSuggestions;
         this.filterByPermission = filterByPermission;
@@ -50,6 +70,14 @@ public class HiderSettings {
         this.groupAlwaysHide = groupAlwaysHide;
         this.unknownCommandMessage = unknownCommandMessage;
         this.noPermissionMessage = noPermissionMessage;
+        this.traceOptions = traceOptions;
+        this.updateCommandsPerTick = Math.max(1, updateCommandsPerTick);
+        this.updateCommandsMaxMicros = Math.max(0L, updateCommandsMaxMicros);
+        this.tabCompleteLimit = tabCompleteLimit;
+        this.commandLimit = commandLimit;
+        this.didYouMeanMaxDistance = Math.max(0, didYouMeanMaxDistance);
+        this.didYouMeanMessage = didYouMeanMessage;
+        this.rules = new RuleSet(hideNamespaced, filterByPermission, alwaysShow, alwaysHide, groupAlwaysShow, groupAlwaysHide);
     }
 
     public static HiderSettings fromConfig(FileConfiguration config) {
@@ -59,14 +87,24 @@ public class HiderSettings {
         boolean replaceUnknownCommand = config.getBoolean("options.replace-unknown-command", true);
         boolean replaceNoPermission = config.getBoolean("options.replace-no-permission", true);
         boolean debug = config.getBoolean("options.debug", false);
+        int updateCommandsPerTick = config.getInt("options.update-commands-per-tick", 20);
+        long updateCommandsMaxMicros = config.getLong("options.update-commands-max-micros", 2000L);
 
-        Set<String> alwaysShow = toLowerSet(config.getStringList("exceptions.always-show"));
-        Set<String> alwaysHide = toLowerSet(config.getStringList("exceptions.always-hide"));
+        Set<String> alwaysShow = Labels.toLowerSet(config.getStringList("exceptions.always-show"));
+        Set<String> alwaysHide = Labels.toLowerSet(config.getStringList("exceptions.always-hide"));
         Map<String, Set<String>> groupAlwaysShow = readGroupLists(config, "exceptions.per-group", "always-show");
         Map<String, Set<String>> groupAlwaysHide = readGroupLists(config, "exceptions.per-group", "always-hide");
 
         String unknown = colorize(config.getString("messages.unknown-command", "&cThis command does not exist."));
         String noPerm = colorize(config.getString("messages.no-permission", "&cYou don't have permission."));
+        String didYouMean = colorize(config.getString("messages.did-you-mean", "&7Did you mean &f/%command%&7?"));
+        TraceOptions trace = new TraceOptions(
+                debug,
+                config.getInt("options.trace.sample-every", 1),
+                config.getInt("options.trace.max-per-second", 200),
+                Set.copyOf(config.getStringList("options.trace.players")),
+                Set.copyOf(config.getStringList("options.trace.labels"))
+        );
 
         return new HiderSettings(
                 hideNamespaced,
@@ -80,20 +118,22 @@ public class HiderSettings {
                 groupAlwaysShow,
                 groupAlwaysHide,
                 unknown,
-                noPerm
+                noPerm,
+                trace,
+                updateCommandsPerTick,
+                updateCommandsMaxMicros,
+                readRateLimit(config, "options.probe-limit.tab-complete", 20, 10.0),
+                readRateLimit(config, "options.probe-limit.commands", 10, 4.0),
+                config.getInt("options.did-you-mean-max-distance", 2),
+                didYouMean
         );
     }
 
-    private static Set<String> toLowerSet(Iterable<String> raw) {
-        Set<String> set = new HashSet<>();
-        for (String value : raw) {
-            String normalized = value == null ? "" : value;
-            if (normalized.startsWith("/")) {
-                normalized = normalized.substring(1);
-            }
-            set.add(normalized.toLowerCase(Locale.ROOT));
+    private static RateLimit readRateLimit(FileConfiguration config, String path, int burst, double perSecond) {
+        if (!config.getBoolean("options.probe-limit.enabled", true)) {
+            return RateLimit.UNLIMITED;
         }
-        return Collections.unmodifiableSet(set);
+        return new RateLimit(config.getInt(path + ".burst", burst), config.getDouble(path + ".per-second", perSecond));
     }
 
     private static String colorize(String raw) {
@@ -140,6 +180,39 @@ public class HiderSettings {
         return groupAlwaysHide;
     }
 
+    public TraceOptions traceOptions() {
+        return traceOptions;
+    }
+
+    public int updateCommandsPerTick() {
+        return updateCommandsPerTick;
+    }
+
+    public long updateCommandsMaxMicros() {
+        return updateCommandsMaxMicros;
+    }
+
+    public RateLimit tabCompleteLimit() {
+        return tabCompleteLimit;
+    }
+
+    public RateLimit commandLimit() {
+        return commandLimit;
+    }
+
+    // 0 disables suggestions.
+    public int didYouMeanMaxDistance() {
+        return didYouMeanMaxDistance;
+    }
+
+    public boolean hasDidYouMeanMessage() {
+        return didYouMeanMaxDistance > 0 && !didYouMeanMessage.isBlank();
+    }
+
+    public String didYouMeanMessage(String command) {
+        return didYouMeanMessage.replace("%command%", command);
+    }
+
     public String unknownCommandMessage() {
         return unknownCommandMessage;
     }
@@ -156,57 +229,43 @@ public class HiderSettings {
         return !noPermissionMessage.isBlank();
     }
 
-    public boolean isAlwaysShow(String commandLabel) {
-        return isAlwaysShow(commandLabel, null);
+    // The configured rules as written, before alias classes are applied; for reports and hit counters.
+    public RuleSet rules() {
+        return rules;
     }
 
-    public boolean isAlwaysShow(String commandLabel, String group) {
-        String normalized = normalize(commandLabel);
-        Set<String> groupSet = groupAlwaysShow.get(normalizeGroup(group));
-        if (matches(normalized, groupSet)) {
-            return true;
+    // The rules applied to the command map's alias classes, rebound only when the classes change. Every thread
+    // passes the classes of the one published snapshot, so the slot only turns over when the command map is
+    // refreshed, and the per-group caches keyed on the RuleSet stay warm in between.
+    public RuleSet rules(AliasGraph aliases) {
+        BoundRules current = bound;
+        if (current == null || current.aliases() != aliases) {
+            current = new BoundRules(aliases, rules.withAliases(aliases));
+            bound = current;
         }
-        return matches(normalized, alwaysShow);
+        return current.rules();
     }
 
-    public boolean isAlwaysHide(String commandLabel) {
-        return isAlwaysHide(commandLabel, null);
+    // Answers with the alias classes last bound by the filters, like the decisions they enforce.
+    public Decision decision(String commandLabel, String group) {
+        BoundRules current = bound;
+        return (current == null ? rules : current.rules()).decision(commandLabel, group);
     }
 
-    public boolean isAlwaysHide(String commandLabel, String group) {
-        String normalized = normalize(commandLabel);
-        Set<String> groupSet = groupAlwaysHide.get(normalizeGroup(group));
-        if (matches(normalized, groupSet)) {
-            return true;
-        }
-        return matches(normalized, alwaysHide);
+    public boolean isAlwaysShow(String commandLabel) {
+        return isAlwaysShow(commandLabel, null);
     }
 
-    private String normalize(String command) {
-        if (command == null) {
-            return "";
-        }
-        String normalized = command.startsWith("/") ? command.substring(1) : command;
-        return normalized.toLowerCase(Locale.ROOT);
+    public boolean isAlwaysShow(String commandLabel, String group) {
+        return decision(commandLabel, group).alwaysShow();
     }
 
-    private boolean checkBase(String normalized, Set<String> set) {
-        int colonIndex = normalized.indexOf(':');
-        if (colonIndex >= 0) {
-            String base = normalized.substring(colonIndex + 1);
-            return set.contains(base);
-        }
-        return false;
+    public boolean isAlwaysHide(String commandLabel) {
+        return isAlwaysHide(commandLabel, null);
     }
 
-    private boolean matches(String normalized, Set<String> set) {
-        if (set == null || set.isEmpty()) {
-            return false;
-        }
-        if (set.contains(normalized)) {
-            return true;
-        }
-        return checkBase(normalized, set);
+    public boolean isAlwaysHide(String commandLabel, String group) {
+        return decision(commandLabel, group).alwaysHide();
     }
 
     private static Map<String, Set<String>> readGroupLists(FileConfiguration config, String basePath, String listName) {
@@ -217,16 +276,12 @@ public class HiderSettings {
         }
         for (String key : section.getKeys(false)) {
             String path = basePath + "." + key + "." + listName;
-            Set<String> values = toLowerSet(config.getStringList(path));
-            map.put(normalizeGroup(key), values);
+            Set<String> values = Labels.toLowerSet(config.getStringList(path));
+            map.put(Labels.normalizeGroup(key), values);
         }
         return Collections.unmodifiableMap(map);
     }
 
-    private static String normalizeGroup(String group) {
-        if (group == null || group.isEmpty()) {
-            return "default";
-        }
-        return group.toLowerCase(Locale.ROOT);
+    private record BoundRules(AliasGraph aliases, RuleSet rules) {
     }
 }
@@ -1,10 +1,13 @@
 package com.elimcgehee.cmdhider;
 
+import com.elimcgehee.cmdhider.core.Bitsets;
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.cacheddata.CachedPermissionData;
 import net.luckperms.api.model.user.User;
 import net.luckperms.api.util.Tristate;
 import org.bukkit.entity.Player;
 
+import java.util.List;
 import java.util.Locale;
 
 public class PermissionChecker {
@@ -33,6 +36,37 @@ public class PermissionChecker {
         return player.hasPermission(permission);
     }
 
+    // Batch form of hasPermission/getPrimaryGroup: resolves the user once per event and checks every node
+    // against the same CachedPermissionData, returning the grants as a bitset over node IDs.
+    public PermissionProfile resolve(Player player, List<String> nodes) {
+        User user = luckPerms == null ? null : luckPerms.getPlayerAdapter(Player.class).getUser(player);
+        CachedPermissionData data = user == null ? null : user.getCachedData().getPermissionData();
+        long[] granted = Bitsets.evaluate(nodes, node -> {
+            Tristate result = data == null ? Tristate.UNDEFINED : data.checkPermission(node);
+            return result != Tristate.UNDEFINED ? result.asBoolean() : player.hasPermission(node);
+        });
+        String group = user != null && user.getPrimaryGroup() != null
+                ? user.getPrimaryGroup().toLowerCase(Locale.ROOT)
+                : "default";
+        return new PermissionProfile(group, player.isOp(), nodes, granted);
+    }
+
+    // Direct or inherited membership, so an edit to a parent group reaches the members of its child groups too.
+    public boolean inheritsGroup(Player player, String group) {
+        if (luckPerms == null) {
+            return false;
+        }
+        User user = luckPerms.getUserManager().getUser(player.getUniqueId());
+        if (user == null) {
+            return false;
+        }
+        if (group.equalsIgnoreCase(user.getPrimaryGroup())) {
+            return true;
+        }
+        return user.getInheritedGroups(user.getQueryOptions()).stream()
+                .anyMatch(inherited -> group.equalsIgnoreCase(inherited.getName()));
+    }
+
     public String getPrimaryGroup(Player player) {
         if (luckPerms != null) {
             User user = luckPerms.getPlayerAdapter(Player.class).getUser(player);
@@ -0,0 +1,60 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.Bitsets;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// A player's primary group, op flag and the outcome of every permission node in one command map snapshot.
+// Players with equal profiles see the same commands, except those the snapshot marks player-dependent, so
+// their visibility results can be shared once those bits are re-checked per player.
+public final class PermissionProfile {
+
+    private final String group;
+    private final boolean op;
+    private final List<String> nodes;
+    private final long[] granted;
+    private final int hash;
+
+    PermissionProfile(String group, boolean op, List<String> nodes, long[] granted) {
+        this.group = group;
+        this.op = op;
+        this.nodes = nodes;
+        this.granted = granted;
+        this.hash = 31 * (31 * Objects.hashCode(group) + Boolean.hashCode(op)) + Arrays.hashCode(granted);
+    }
+
+    public String group() {
+        return group;
+    }
+
+    // IDs are only meaningful against the node list this profile was resolved from.
+    public boolean resolvedFrom(List<String> snapshotNodes) {
+        return nodes == snapshotNodes;
+    }
+
+    public boolean grantsAny(int[] permissionIds) {
+        return Bitsets.any(granted, permissionIds);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof PermissionProfile profile)) {
+            return false;
+        }
+        return hash == profile.hash
+                && op == profile.op
+                && nodes == profile.nodes
+                && Objects.equals(group, profile.group)
+                && Arrays.equals(granted, profile.granted);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,9 @@
+package com.elimcgehee.cmdhider;
+
+import org.bukkit.command.Command;
+import org.bukkit.help.HelpTopic;
+
+// A label resolved against the command map snapshot; command is null for help-only topics.
+// permissionIds index the snapshot's permission nodes, one per ';'-separated alternative.
+public record ResolvedCommand(Command command, String permission, HelpTopic helpTopic, int[] permissionIds) {
+}
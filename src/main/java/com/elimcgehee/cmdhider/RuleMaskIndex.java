@@ -0,0 +1,32 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.RuleMasks;
+import com.elimcgehee.cmdhider.core.RuleSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-group rule bitsets over the snapshot's label IDs, rebuilt when the rules or the command map change.
+public class RuleMaskIndex {
+
+    private final Map<String, Masks> masks = new ConcurrentHashMap<>();
+
+    public RuleMasks forGroup(String group, RuleSet rules, List<String> labels) {
+        String key = group == null ? "" : group;
+        Masks cached = masks.get(key);
+        if (cached != null && cached.rules() == rules && cached.masks().builtFrom(labels)) {
+            return cached.masks();
+        }
+        RuleMasks computed = RuleMasks.compute(labels, group, rules);
+        masks.put(key, new Masks(rules, computed));
+        return computed;
+    }
+
+    public void invalidate() {
+        masks.clear();
+    }
+
+    private record Masks(RuleSet rules, RuleMasks masks) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.elimcgehee.cmdhider;
+
+import com.elimcgehee.cmdhider.core.BkTree;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+// "Did you mean" lookups over every command label. One tree serves all groups: a candidate is only offered
+// after the caller's visibility check, so hidden commands never leak and settings changes need no rebuild.
+// New snapshots are folded in incrementally; removed labels stay in the tree but no longer resolve, until
+// they outnumber the live ones and the tree is rebuilt.
+public class SuggestionIndex {
+
+    private BkTree tree = new BkTree();
+    private List<String> indexedFrom;
+
+    public synchronized String suggest(String label, CommandResolver.Snapshot snapshot, int maxDistance,
+                                       Predicate<String> visible) {
+        update(snapshot);
+        // Short labels would match almost anything at the full distance.
+        int distance = Math.min(maxDistance, (label.length() + 1) / 2);
+        for (BkTree.Match match : tree.within(label, distance)) {
+            if (snapshot.labelId(match.word()) >= 0 && visible.test(match.word())) {
+                return match.word();
+            }
+        }
+        return null;
+    }
+
+    private void update(CommandResolver.Snapshot snapshot) {
+        List<String> labels = snapshot.labels();
+        if (labels == indexedFrom) {
+            return;
+        }
+        if (tree.size() > 2 * labels.size()) {
+            tree = new BkTree();
+        }
+        for (String label : labels) {
+            tree.add(label);
+        }
+        indexedFrom = labels;
+    }
+}
@@ -0,0 +1,107 @@
+package com.elimcgehee.cmdhider;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class VisibilityCache {
+
+    // Profiles are few in practice; clear rather than grow if something makes every player unique.
+    private static final int MAX_PROFILES = 1024;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // Results shared by every player with the same permission profile.
+    private final Map<PermissionProfile, Entry> profiles = new ConcurrentHashMap<>();
+    // Bumped by invalidateAll so results computed against stale state are never stored.
+    private final AtomicLong generation = new AtomicLong();
+    // Per-player counterpart: a LuckPerms recalc (one per login) only fences that player's own in-flight puts.
+    private final Map<UUID, Long> playerGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong playerSequence = new AtomicLong();
+
+    // LuckPerms contexts commonly include the world, so entries are only valid for the world they were built in.
+    public Entry get(UUID playerId, String group, String world) {
+        Entry entry = entries.get(playerId);
+        if (entry == null || !Objects.equals(entry.group(), group) || !Objects.equals(entry.world(), world)) {
+            return null;
+        }
+        return entry;
+    }
+
+    // Whatever was last sent to the player, regardless of group or world; only for cheap pre-checks.
+    public Entry get(UUID playerId) {
+        return entries.get(playerId);
+    }
+
+    public Stamp stamp(UUID playerId) {
+        return new Stamp(generation.get(), playerGenerations.getOrDefault(playerId, 0L));
+    }
+
+    public void put(UUID playerId, Entry entry, Stamp stamp) {
+        if (!current(playerId, stamp)) {
+            return;
+        }
+        entries.put(playerId, entry);
+        // An invalidation may have raced the put; drop the entry rather than serve it.
+        if (!current(playerId, stamp)) {
+            entries.remove(playerId, entry);
+        }
+    }
+
+    private boolean current(UUID playerId, Stamp stamp) {
+        return generation.get() == stamp.global() && playerGenerations.getOrDefault(playerId, 0L) == stamp.player();
+    }
+
+    public Entry get(PermissionProfile profile) {
+        return profiles.get(profile);
+    }
+
+    // A profile result only depends on the profile itself, so only a global invalidation can make it stale.
+    public void put(PermissionProfile profile, Entry entry, Stamp stamp) {
+        if (generation.get() != stamp.global()) {
+            return;
+        }
+        if (profiles.size() >= MAX_PROFILES) {
+            profiles.clear();
+        }
+        profiles.put(profile, entry);
+        if (generation.get() != stamp.global()) {
+            profiles.remove(profile, entry);
+        }
+    }
+
+    public int profileCount() {
+        return profiles.size();
+    }
+
+    // A player's own entry goes when their permissions change; profile entries stay valid, since the
+    // player will simply compute a different profile next time.
+    public void invalidate(UUID playerId) {
+        playerGenerations.put(playerId, playerSequence.incrementAndGet());
+        entries.remove(playerId);
+    }
+
+    public void forget(UUID playerId) {
+        entries.remove(playerId);
+        playerGenerations.remove(playerId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        profiles.clear();
+    }
+
+    public record Stamp(long global, long player) {
+    }
+
+    // One bit per label ID of the snapshot the entry was built from; a new snapshot means new IDs.
+    public record Entry(String group, String world, List<String> labels, long[] visible) {
+
+        public boolean builtFrom(CommandResolver.Snapshot snapshot) {
+            return labels == snapshot.labels();
+        }
+    }
+}